@@ -45,4 +45,6 @@ dependencies {
     androidTestImplementation("androidx.test.espresso:espresso-core:3.5.1")
     implementation ("pl.droidsonroids.gif:android-gif-drawable:1.2.19")
     implementation("de.hdodenhof:circleimageview:3.1.0")
+    implementation("androidx.asynclayoutinflater:asynclayoutinflater:1.0.0")
+    implementation("androidx.startup:startup-runtime:1.1.1")
 }
\ No newline at end of file
@@ -0,0 +1,112 @@
+package com.example.employee_data_app;
+
+import android.content.Context;
+import android.util.Log;
+
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.platform.app.InstrumentationRegistry;
+
+import com.google.android.gms.tasks.Tasks;
+import com.google.firebase.FirebaseApp;
+import com.google.firebase.Timestamp;
+import com.google.firebase.firestore.FirebaseFirestore;
+import com.google.firebase.firestore.QuerySnapshot;
+import com.google.firebase.firestore.Source;
+import com.google.firebase.firestore.WriteBatch;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+
+import static org.junit.Assert.*;
+
+/**
+ * Measures cached query latency for the admin directory's partition queries over a large local cache.
+ * Runs offline against a separate Firebase app so the real cache is untouched.
+ */
+@RunWith(AndroidJUnit4.class)
+public class CachedQueryBenchmark {
+
+    private static final String TAG = "CachedQueryBenchmark";
+    private static final int DOCUMENTS = 10000;
+    private static final int RUNS = 20;
+    // Half of the documents land in the first department, like the largest partition of a real org
+    private static final String[] DEPARTMENTS = {"Engineering", "Sales", "Operations", "Finance"};
+
+    private FirebaseApp app;
+    private FirebaseFirestore db;
+
+    @Before
+    public void setUp() throws Exception {
+        Context context = InstrumentationRegistry.getInstrumentation().getTargetContext();
+        app = FirebaseApp.initializeApp(context, FirebaseApp.getInstance().getOptions(), "cache-benchmark");
+        db = FirebaseFirestore.getInstance(app);
+        FirestorePolicy.DEFAULT.apply(db);
+        Tasks.await(db.disableNetwork());
+
+        // Offline writes land in the local cache only
+        for (int start = 0; start < DOCUMENTS; start += 500) {
+            WriteBatch batch = db.batch();
+            for (int i = start; i < Math.min(start + 500, DOCUMENTS); i++) {
+                Map<String, Object> user = new HashMap<>();
+                String name = "Employee " + i;
+                String email = "employee" + i + "@example.com";
+                user.put("fName", name);
+                user.put("email", email);
+                user.put(User.NAME_KEY, User.sortKey(name));
+                user.put(User.EMAIL_KEY, User.sortKey(email));
+                user.put("phone", String.format(Locale.ROOT, "09%02d%07d", i % 20, i));
+                user.put("isUser", "1");
+                user.put(DepartmentPartitions.FIELD, i % 2 == 0 ? DEPARTMENTS[0] : DEPARTMENTS[1 + i % 3]);
+                user.put("registeredAt", new Timestamp(1_600_000_000L + i * 60L, 0));
+                batch.set(db.collection("users").document("bench-" + i), user);
+            }
+            batch.commit();
+        }
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        Tasks.await(db.terminate());
+        Tasks.await(db.clearPersistence());
+        app.delete();
+    }
+
+    @Test
+    public void cachedPartitionQueries() throws Exception {
+        // The same query DepartmentPartitions.expand listens to, for every sort order
+        for (EmployeeDirectory.SortOrder order : EmployeeDirectory.SortOrder.values()) {
+            long median = measure(() -> Tasks.await(db.collection("users")
+                    .whereEqualTo(DepartmentPartitions.FIELD, DEPARTMENTS[0])
+                    .orderBy(order.field)
+                    .get(Source.CACHE)));
+            Log.i(TAG, "median " + DEPARTMENTS[0] + " partition by " + order.field + ": " + median / 1000 + " us");
+        }
+
+        QuerySnapshot snapshot = Tasks.await(db.collection("users").get(Source.CACHE));
+        assertEquals(DOCUMENTS, snapshot.size());
+    }
+
+    private interface Query {
+        void run() throws Exception;
+    }
+
+    // Median of several runs; the first run lets index auto-creation kick in
+    private long measure(Query query) throws Exception {
+        query.run();
+        long[] samples = new long[RUNS];
+        for (int i = 0; i < RUNS; i++) {
+            long start = System.nanoTime();
+            query.run();
+            samples[i] = System.nanoTime() - start;
+        }
+        Arrays.sort(samples);
+        return samples[RUNS / 2];
+    }
+}
@@ -7,14 +7,20 @@ import androidx.appcompat.app.AppCompatActivity;
 import androidx.recyclerview.widget.LinearLayoutManager;
 import androidx.recyclerview.widget.RecyclerView;
 
+import android.annotation.SuppressLint;
 import android.app.ProgressDialog;
 import android.content.Intent;
 import android.os.Bundle;
 import android.util.Log;
+import android.view.Gravity;
 import android.view.Menu;
 import android.view.MenuItem;
+import android.view.View;
 import android.widget.EditText;
+import android.widget.LinearLayout;
+import android.widget.TextView;
 import android.widget.Toast;
+import android.widget.ToggleButton;
 
 import com.google.android.gms.tasks.OnFailureListener;
 import com.google.android.gms.tasks.OnSuccessListener;
@@ -22,21 +28,63 @@ import com.google.firebase.auth.FirebaseAuth;
 import com.google.firebase.auth.FirebaseUser;
 import com.google.firebase.firestore.DocumentChange;
 import com.google.firebase.firestore.DocumentSnapshot;
-import com.google.firebase.firestore.EventListener;
 import com.google.firebase.firestore.FirebaseFirestore;
 import com.google.firebase.firestore.FirebaseFirestoreException;
 import com.google.firebase.firestore.QuerySnapshot;
 
+import java.io.File;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
-public class AdminActivity extends AppCompatActivity {
+public class AdminActivity extends AppCompatActivity implements DepartmentPartitions.Listener {
 
     RecyclerView recyclerView;
-    ArrayList<User> userArrayList;
+    LinearLayoutManager layoutManager;
+    LinearLayout sectionIndex;
+    LinearLayout departmentSections;
+    EmployeeDirectory directory;
     MyAdapter myAdapter;
     FirebaseFirestore db;
+    DepartmentPartitions partitions;
+    File snapshotFile;
+    // Uids shown from the saved snapshot until the first server snapshot reconciles them
+    Set<String> restoredIds;
+    PresenceBoard presenceBoard;
+    boolean signedOut;
 
     ProgressDialog progressDialog;
+    long directoryBudget;
+    CacheRegistry.Cache rowTextCache;
+    CacheRegistry.Cache searchIndexCache;
+
+    // Live rows cannot be dropped one at a time, so the directory gives back whole sections
+    private final CacheRegistry.Cache directoryCache = new CacheRegistry.Cache() {
+        @Override
+        public long sizeBytes() {
+            return directory.estimatedBytes();
+        }
+
+        @Override
+        public long budgetBytes() {
+            return directoryBudget;
+        }
+
+        @Override
+        public void trimToBytes(long maxBytes) {
+            trimDepartments(maxBytes);
+        }
+    };
+
+    // Rows ahead of the viewport whose avatars are fetched while scrolling
+    private static final int AVATAR_PREFETCH_ROWS = 6;
+    private static final int AVATAR_FLING_PREFETCH_ROWS = 20;
+    // Rows inflated in the background before the first data arrives
+    private static final int PREWARM_ROWS = 12;
+    private static final String SECTION_LETTERS = "#ABCDEFGHIJKLMNOPQRSTUVWXYZ";
 
     @Override
     protected void onCreate(Bundle savedInstanceState) {
@@ -46,47 +94,393 @@ public class AdminActivity extends AppCompatActivity {
         progressDialog = new ProgressDialog(this);
         progressDialog.setCancelable(false);
         progressDialog.setMessage("Fetching Employee Data.....");
-        progressDialog.show();
 
         recyclerView = findViewById(R.id.recyclerview);
         recyclerView.setHasFixedSize(true);
-        recyclerView.setLayoutManager(new LinearLayoutManager(this));
+        layoutManager = new LinearLayoutManager(this);
+        recyclerView.setLayoutManager(layoutManager);
 
         db = FirebaseFirestore.getInstance();
-        userArrayList = new ArrayList<>();
-        myAdapter = new MyAdapter(AdminActivity.this, userArrayList);
+        directory = new EmployeeDirectory();
+        myAdapter = new MyAdapter(AdminActivity.this, directory);
         recyclerView.setAdapter(myAdapter);
+        // Presence comes from shared shard documents, attached for the rows on screen
+        presenceBoard = new PresenceBoard(db, this::refreshVisiblePresence);
+        myAdapter.presenceBoard = presenceBoard;
+        myAdapter.prewarm(recyclerView, PREWARM_ROWS);
+        recyclerView.addOnScrollListener(new RecyclerView.OnScrollListener() {
+            @Override
+            public void onScrollStateChanged(@NonNull RecyclerView rv, int newState) {
+                if (newState == RecyclerView.SCROLL_STATE_IDLE) {
+                    presenceBoard.watch(myAdapter.usersBetween(layoutManager.findFirstVisibleItemPosition(),
+                            layoutManager.findLastVisibleItemPosition()));
+                }
+            }
+
+            @Override
+            public void onScrolled(@NonNull RecyclerView rv, int dx, int dy) {
+                int rows = rv.getScrollState() == RecyclerView.SCROLL_STATE_SETTLING
+                        ? AVATAR_FLING_PREFETCH_ROWS : AVATAR_PREFETCH_ROWS;
+                if (dy > 0) {
+                    myAdapter.prefetchAvatars(layoutManager.findLastVisibleItemPosition() + 1, rows);
+                } else if (dy < 0) {
+                    myAdapter.prefetchAvatars(layoutManager.findFirstVisibleItemPosition() - rows, rows);
+                }
+            }
+        });
+
+        // Bring back the last window synchronously after rotation or process death
+        FirebaseUser admin = FirebaseAuth.getInstance().getCurrentUser();
+        snapshotFile = DirectorySnapshot.fileFor(this, admin != null ? admin.getUid() : "");
+        if (savedInstanceState == null || !restoreSnapshot()) {
+            progressDialog.show();
+        }
+
+        sectionIndex = findViewById(R.id.section_index);
+        buildSectionIndex();
 
-        eventChangeListener();
+        // Employees are partitioned by department; only expanded sections are listened to
+        departmentSections = findViewById(R.id.department_sections);
+        partitions = new DepartmentPartitions(this, db, admin != null ? admin.getUid() : "", this);
+        partitions.setOrder(directory.getOrder());
+
+        // This screen's caches join the app-wide registry so memory pressure trims them in order
+        CacheRegistry registry = CacheRegistry.getInstance();
+        directory.filter.setSearchIndexBudget(CacheRegistry.budget(this, 64));
+        directoryBudget = CacheRegistry.budget(this, 8);
+        rowTextCache = CacheRegistry.of(myAdapter.rowText.texts);
+        searchIndexCache = directory.filter.searchIndex();
+        registry.register("rowText", CacheRegistry.PRIORITY_DERIVED, rowTextCache);
+        registry.register("searchIndex", CacheRegistry.PRIORITY_INDEX, searchIndexCache);
+        registry.register("directory", CacheRegistry.PRIORITY_DATA, directoryCache);
+
+        loadDepartments();
     }
 
-    private void eventChangeListener() {
-        db.collection("users")
-                .addSnapshotListener(new EventListener<QuerySnapshot>() {
-                    @Override
-                    public void onEvent(@Nullable QuerySnapshot value, @Nullable FirebaseFirestoreException error) {
-                        if (error != null) {
-                            Log.e("Firestore error", error.getMessage());
-                            if (progressDialog.isShowing())
-                                progressDialog.dismiss();
-                            return;
-                        }
+    private boolean restoreSnapshot() {
+        DirectorySnapshot snapshot = DirectorySnapshot.read(snapshotFile);
+        if (snapshot == null || snapshot.users.isEmpty()) {
+            return false;
+        }
+        directory.setOrder(snapshot.order);
+        restoredIds = new HashSet<>();
+        for (User user : snapshot.users) {
+            directory.insert(user);
+            restoredIds.add(user.uid);
+        }
+        myAdapter.precomputeRows(snapshot.users);
+        myAdapter.notifyDataSetChanged();
+        scrollToAnchor(snapshot.anchorUid, snapshot.anchorOffset);
+        return true;
+    }
 
-                        for (DocumentChange dc : value.getDocumentChanges()) {
-                            if (dc.getType() == DocumentChange.Type.ADDED) {
-                                DocumentSnapshot documentSnapshot = dc.getDocument();
-                                if (documentSnapshot.getString("isUser") != null) {
-                                    User user = documentSnapshot.toObject(User.class);
-                                    userArrayList.add(user);
-                                }
-                            }
-                        }
+    @Override
+    protected void onPause() {
+        super.onPause();
+        // Nothing is saved once the admin has signed out
+        if (directory.size() == 0 || signedOut || FirebaseAuth.getInstance().getCurrentUser() == null) {
+            return;
+        }
+        int firstVisible = layoutManager.findFirstVisibleItemPosition();
+        if (firstVisible == RecyclerView.NO_POSITION) {
+            return;
+        }
+        View first = layoutManager.findViewByPosition(firstVisible);
+        int offset = first != null ? first.getTop() - recyclerView.getPaddingTop() : 0;
+        DirectorySnapshot.writeAsync(snapshotFile, directory, myAdapter.directoryPosition(firstVisible), offset);
+    }
 
-                        myAdapter.notifyDataSetChanged();
-                        if (progressDialog.isShowing())
-                            progressDialog.dismiss();
-                    }
-                });
+    private void scrollToAnchor(@Nullable String anchorUid, int offset) {
+        User anchor = anchorUid != null ? directory.getById(anchorUid) : null;
+        if (anchor == null) {
+            return;
+        }
+        int position = myAdapter.adapterPosition(directory.indexOf(anchor));
+        layoutManager.scrollToPositionWithOffset(position, offset);
+    }
+
+    @Override
+    protected void onDestroy() {
+        super.onDestroy();
+        partitions.stop();
+        presenceBoard.stop();
+        CacheRegistry registry = CacheRegistry.getInstance();
+        registry.unregister("rowText", rowTextCache);
+        registry.unregister("searchIndex", searchIndexCache);
+        registry.unregister("directory", directoryCache);
+    }
+
+    private void refreshVisiblePresence() {
+        int first = layoutManager.findFirstVisibleItemPosition();
+        int last = layoutManager.findLastVisibleItemPosition();
+        if (first != RecyclerView.NO_POSITION) {
+            myAdapter.notifyItemRangeChanged(first, last - first + 1, MyAdapter.PAYLOAD_PRESENCE);
+        }
+    }
+
+    // Letter strip for jumping straight to a section
+    @SuppressLint("ClickableViewAccessibility")
+    private void buildSectionIndex() {
+        sectionIndex.removeAllViews();
+        for (char c : SECTION_LETTERS.toCharArray()) {
+            TextView letter = new TextView(this);
+            letter.setText(String.valueOf(c));
+            letter.setTextSize(10);
+            letter.setGravity(Gravity.CENTER);
+            sectionIndex.addView(letter, new LinearLayout.LayoutParams(
+                    LinearLayout.LayoutParams.MATCH_PARENT, 0, 1f));
+        }
+        sectionIndex.setOnTouchListener((v, event) -> {
+            int slot = (int) (event.getY() / v.getHeight() * SECTION_LETTERS.length());
+            slot = Math.max(0, Math.min(slot, SECTION_LETTERS.length() - 1));
+            int position = myAdapter.adapterPosition(directory.positionForSection(SECTION_LETTERS.charAt(slot)));
+            layoutManager.scrollToPositionWithOffset(position, 0);
+            return true;
+        });
+        sectionIndex.setVisibility(directory.getOrder() == EmployeeDirectory.SortOrder.REGISTERED
+                ? View.GONE : View.VISIBLE);
+    }
+
+    // Checked facets are ANDed; comma separated phone prefixes are ORed
+    private void showFilterDialog() {
+        String[] labels = {"Unverified", "Role: User", "Role: Admin", "Registered this month",
+                "Duplicate email or phone"};
+        String[] keys = {DirectoryFilter.UNVERIFIED, DirectoryFilter.ROLE_USER,
+                DirectoryFilter.ROLE_ADMIN, DirectoryFilter.REGISTERED_THIS_MONTH, DirectoryFilter.DUPLICATE};
+        boolean[] checked = new boolean[keys.length];
+
+        EditText phonePrefixes = new EditText(this);
+        phonePrefixes.setHint("Phone prefix, e.g. 0917,0918");
+
+        AlertDialog.Builder filterDialog = new AlertDialog.Builder(this);
+        filterDialog.setTitle("Filter Employees");
+        filterDialog.setMultiChoiceItems(labels, checked, (dialog, which, isChecked) -> checked[which] = isChecked);
+        filterDialog.setView(phonePrefixes);
+
+        filterDialog.setPositiveButton("Apply", (dialog, which) -> {
+            List<List<String>> clauses = new ArrayList<>();
+            for (int i = 0; i < keys.length; i++) {
+                if (checked[i]) {
+                    clauses.add(Collections.singletonList(keys[i]));
+                }
+            }
+            List<String> prefixes = new ArrayList<>();
+            for (String prefix : phonePrefixes.getText().toString().split(",")) {
+                if (!prefix.trim().isEmpty()) {
+                    prefixes.add(directory.filter.phonePrefix(prefix.trim()));
+                }
+            }
+            if (!prefixes.isEmpty()) {
+                clauses.add(prefixes);
+            }
+            myAdapter.setFilter(clauses);
+        });
+
+        filterDialog.setNeutralButton("Clear", (dialog, which) -> myAdapter.setFilter(null));
+        filterDialog.setNegativeButton("Cancel", (dialog, which) -> {});
+
+        filterDialog.create().show();
+    }
+
+    // Rows are already loaded, so a new order is a local re-sort
+    private void changeOrder(EmployeeDirectory.SortOrder order) {
+        if (directory.getOrder() == order) {
+            return;
+        }
+        directory.setOrder(order);
+        partitions.setOrder(order);
+        myAdapter.onDirectoryReloaded();
+        buildSectionIndex();
+    }
+
+    // Scope is read from the admin's own profile, then the saved sections are expanded
+    private void loadDepartments() {
+        FirebaseUser admin = FirebaseAuth.getInstance().getCurrentUser();
+        if (admin == null) {
+            progressDialog.dismiss();
+            return;
+        }
+        db.collection("users").document(admin.getUid()).get().addOnCompleteListener(task -> {
+            if (task.isSuccessful() && task.getResult().exists()) {
+                PresenceTracker.getInstance().setDepartment(task.getResult().getString(DepartmentPartitions.FIELD));
+            }
+            partitions.setManaged(DepartmentPartitions.managedBy(task.isSuccessful() ? task.getResult() : null,
+                    getResources().getStringArray(R.array.departments)));
+            Set<String> expanded = partitions.savedExpanded();
+            dropRestoredOutside(expanded);
+            buildDepartmentSections(expanded);
+            for (String department : expanded) {
+                partitions.expand(department);
+            }
+            if (expanded.isEmpty() && progressDialog.isShowing()) {
+                progressDialog.dismiss();
+            }
+        });
+    }
+
+    // One toggle per managed department; only expanded ones hold a listener
+    private void buildDepartmentSections(Set<String> expanded) {
+        departmentSections.removeAllViews();
+        for (String department : partitions.getManaged()) {
+            ToggleButton section = new ToggleButton(this);
+            section.setTextOn(department);
+            section.setTextOff(department);
+            section.setChecked(expanded.contains(department));
+            section.setOnCheckedChangeListener((button, isChecked) -> {
+                if (isChecked) {
+                    partitions.expand(department);
+                } else {
+                    collapseDepartment(department);
+                }
+            });
+            departmentSections.addView(section);
+        }
+    }
+
+    private void collapseDepartment(String department) {
+        partitions.collapse(department);
+        for (User user : directory.removeDepartment(department)) {
+            myAdapter.rowText.remove(user);
+            if (restoredIds != null) {
+                restoredIds.remove(user.uid);
+            }
+        }
+        myAdapter.onDirectoryReloaded();
+    }
+
+    // Collapse the costliest expanded sections first, keeping the one on screen
+    private void trimDepartments(long maxBytes) {
+        String onScreen = null;
+        int firstVisible = layoutManager.findFirstVisibleItemPosition();
+        if (firstVisible != RecyclerView.NO_POSITION && firstVisible < myAdapter.getItemCount()) {
+            onScreen = directory.get(myAdapter.directoryPosition(firstVisible)).department;
+        }
+        Map<String, Long> bytes = directory.estimatedBytesByDepartment();
+        List<String> expanded = new ArrayList<>(partitions.expanded());
+        Collections.sort(expanded, (a, b) -> Long.compare(bytes.getOrDefault(b, 0L), bytes.getOrDefault(a, 0L)));
+
+        long total = directory.estimatedBytes();
+        boolean collapsed = false;
+        for (String department : expanded) {
+            if (total <= maxBytes) {
+                break;
+            }
+            if (department.equals(onScreen)) {
+                continue;
+            }
+            total -= bytes.getOrDefault(department, 0L);
+            collapseDepartment(department);
+            collapsed = true;
+        }
+        if (collapsed) {
+            buildDepartmentSections(partitions.expanded());
+        }
+    }
+
+    // Restored rows from departments that are no longer expanded will never be reconciled
+    private void dropRestoredOutside(Set<String> expanded) {
+        if (restoredIds == null) {
+            return;
+        }
+        boolean changed = false;
+        for (String restoredId : new ArrayList<>(restoredIds)) {
+            User restored = directory.getById(restoredId);
+            if (restored == null || !expanded.contains(restored.department)) {
+                if (restored != null) {
+                    myAdapter.rowText.remove(restored);
+                }
+                directory.remove(restoredId);
+                restoredIds.remove(restoredId);
+                changed = true;
+            }
+        }
+        if (restoredIds.isEmpty()) {
+            restoredIds = null;
+        }
+        if (changed) {
+            myAdapter.onDirectoryReloaded();
+        }
+    }
+
+    // Each partition is sorted client-side by binary search, so no composite index is needed
+    @Override
+    public void onPartitionChanged(String department, QuerySnapshot value, boolean first) {
+        // A freshly expanded partition is applied in bulk, keeping the row on screen in place
+        boolean bulk = first;
+        String anchorUid = null;
+        int anchorOffset = 0;
+        if (bulk && directory.size() > 0) {
+            int firstVisible = layoutManager.findFirstVisibleItemPosition();
+            View firstView = layoutManager.findViewByPosition(firstVisible);
+            if (firstVisible != RecyclerView.NO_POSITION && firstView != null) {
+                anchorUid = directory.get(myAdapter.directoryPosition(firstVisible)).uid;
+                anchorOffset = firstView.getTop() - recyclerView.getPaddingTop();
+            }
+        }
+
+        List<User> added = new ArrayList<>();
+        for (DocumentChange dc : value.getDocumentChanges()) {
+            DocumentSnapshot documentSnapshot = dc.getDocument();
+            User old = directory.getById(documentSnapshot.getId());
+            // A user who moved departments leaves one partition as the other takes them in;
+            // the old partition's REMOVED must not drop the row the new one already placed
+            if (old != null && dc.getType() == DocumentChange.Type.REMOVED
+                    && !department.equals(old.department)) {
+                continue;
+            }
+            int removedAt = directory.remove(documentSnapshot.getId());
+            if (removedAt >= 0 && bulk) {
+                myAdapter.rowText.remove(old);
+            } else if (removedAt >= 0) {
+                myAdapter.onUserRemoved(old, removedAt);
+            }
+            // Admin profiles are listed too, so the role facets can tell them apart
+            if (dc.getType() != DocumentChange.Type.REMOVED
+                    && SessionCache.roleOf(documentSnapshot) != null) {
+                User user = documentSnapshot.toObject(User.class);
+                int insertedAt = directory.insert(user);
+                added.add(user);
+                if (!bulk) {
+                    myAdapter.onUserInserted(insertedAt);
+                }
+            }
+        }
+
+        if (first && restoredIds != null) {
+            // Rows deleted or moved away while we were gone never produce a REMOVED change
+            for (DocumentSnapshot documentSnapshot : value.getDocuments()) {
+                restoredIds.remove(documentSnapshot.getId());
+            }
+            for (String staleId : new ArrayList<>(restoredIds)) {
+                User stale = directory.getById(staleId);
+                if (stale != null && department.equals(stale.department)) {
+                    myAdapter.rowText.remove(stale);
+                    directory.remove(staleId);
+                    restoredIds.remove(staleId);
+                }
+            }
+            if (restoredIds.isEmpty()) {
+                restoredIds = null;
+            }
+        }
+
+        myAdapter.precomputeRows(added);
+        if (bulk) {
+            myAdapter.onDirectoryReloaded();
+            scrollToAnchor(anchorUid, anchorOffset);
+            recyclerView.post(() -> presenceBoard.watch(myAdapter.usersBetween(
+                    layoutManager.findFirstVisibleItemPosition(),
+                    layoutManager.findLastVisibleItemPosition())));
+        }
+        if (progressDialog.isShowing())
+            progressDialog.dismiss();
+    }
+
+    @Override
+    public void onPartitionError(String department, FirebaseFirestoreException error) {
+        Log.e("Firestore error", department + ": " + error.getMessage());
+        if (progressDialog.isShowing())
+            progressDialog.dismiss();
     }
 
     /*private void eventChangeListener() {
@@ -119,6 +513,7 @@ public class AdminActivity extends AppCompatActivity {
     public boolean onCreateOptionsMenu(Menu menu) {
         Log.d("MainActivity", "onCreateOptionsMenu called");
         getMenuInflater().inflate(R.menu.common_menu, menu);
+        getMenuInflater().inflate(R.menu.admin_menu, menu);
         return true;
     }
 
@@ -129,7 +524,9 @@ public class AdminActivity extends AppCompatActivity {
             finish();
             overridePendingTransition(0,0);
         } else if (id ==R.id.menu_logout) {
-            FirebaseAuth.getInstance().signOut();
+            // Auth is released a moment later, once presence has been flushed
+            signedOut = true;
+            SessionCache.signOut(this);
             Toast.makeText(this, "Logged Out", Toast.LENGTH_SHORT).show();
             Intent intent = new Intent(AdminActivity.this, Login.class);
             intent.setFlags(Intent.FLAG_ACTIVITY_CLEAR_TOP | Intent.FLAG_ACTIVITY_CLEAR_TASK
@@ -172,6 +569,16 @@ public class AdminActivity extends AppCompatActivity {
             passwordResetDialog.setNegativeButton("No", (dialog, which) -> {});
 
             passwordResetDialog.create().show();
+        } else if (id == R.id.menu_sort_name) {
+            changeOrder(EmployeeDirectory.SortOrder.NAME);
+        } else if (id == R.id.menu_sort_email) {
+            changeOrder(EmployeeDirectory.SortOrder.EMAIL);
+        } else if (id == R.id.menu_sort_registered) {
+            changeOrder(EmployeeDirectory.SortOrder.REGISTERED);
+        } else if (id == R.id.menu_filter) {
+            showFilterDialog();
+        } else if (id == R.id.menu_org_chart) {
+            startActivity(new Intent(this, OrgChartActivity.class));
         } else {
             Toast.makeText(this, "Something went wrong", Toast.LENGTH_SHORT).show();
         }
@@ -0,0 +1,188 @@
+package com.example.employee_data_app;
+
+import androidx.annotation.NonNull;
+import androidx.appcompat.app.AppCompatActivity;
+import androidx.recyclerview.widget.LinearLayoutManager;
+import androidx.recyclerview.widget.RecyclerView;
+
+import android.os.Bundle;
+import android.text.format.DateFormat;
+import android.util.Log;
+import android.view.LayoutInflater;
+import android.view.View;
+import android.view.ViewGroup;
+import android.widget.TextView;
+
+import com.google.firebase.Timestamp;
+import com.google.firebase.firestore.DocumentSnapshot;
+import com.google.firebase.firestore.FirebaseFirestore;
+import com.google.firebase.firestore.Query;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+public class AuditHistoryActivity extends AppCompatActivity {
+
+    private static final String TAG = "AuditHistoryActivity";
+    static final String EXTRA_UID = "uid";
+    static final String EXTRA_NAME = "fullName";
+
+    // Recent raw entries per page, then daily rollups per page
+    private static final int RAW_PAGE = 30;
+    private static final int DAY_PAGE = 7;
+    private static final int LOAD_AHEAD_ROWS = 5;
+
+    RecyclerView recyclerView;
+    LinearLayoutManager layoutManager;
+    FirebaseFirestore fStore;
+    String uid;
+
+    private final List<String[]> rows = new ArrayList<>();
+    private final HistoryAdapter adapter = new HistoryAdapter();
+    private DocumentSnapshot lastRaw, lastDay;
+    private boolean rawDone, daysDone, loading;
+
+    @Override
+    protected void onCreate(Bundle savedInstanceState) {
+        super.onCreate(savedInstanceState);
+        setContentView(R.layout.activity_audit_history);
+
+        uid = getIntent().getStringExtra(EXTRA_UID);
+        setTitle("History: " + getIntent().getStringExtra(EXTRA_NAME));
+        fStore = FirebaseFirestore.getInstance();
+
+        recyclerView = findViewById(R.id.auditRecyclerView);
+        layoutManager = new LinearLayoutManager(this);
+        recyclerView.setLayoutManager(layoutManager);
+        recyclerView.setAdapter(adapter);
+        recyclerView.addOnScrollListener(new RecyclerView.OnScrollListener() {
+            @Override
+            public void onScrolled(@NonNull RecyclerView rv, int dx, int dy) {
+                if (layoutManager.findLastVisibleItemPosition() >= rows.size() - LOAD_AHEAD_ROWS) {
+                    loadNextPage();
+                }
+            }
+        });
+
+        loadNextPage();
+    }
+
+    private void loadNextPage() {
+        if (loading || (rawDone && daysDone)) {
+            return;
+        }
+        loading = true;
+        if (!rawDone) {
+            Query query = AuditLog.auditOf(fStore, uid).orderBy("at", Query.Direction.DESCENDING).limit(RAW_PAGE);
+            if (lastRaw != null) {
+                query = query.startAfter(lastRaw);
+            }
+            query.get().addOnSuccessListener(this, snapshots -> {
+                for (DocumentSnapshot doc : snapshots.getDocuments()) {
+                    addRow(doc.getData());
+                }
+                if (!snapshots.isEmpty()) {
+                    lastRaw = snapshots.getDocuments().get(snapshots.size() - 1);
+                }
+                rawDone = snapshots.size() < RAW_PAGE;
+                pageLoaded();
+            }).addOnFailureListener(this, this::pageFailed);
+        } else {
+            Query query = AuditLog.dailyOf(fStore, uid).orderBy("day", Query.Direction.DESCENDING).limit(DAY_PAGE);
+            if (lastDay != null) {
+                query = query.startAfter(lastDay);
+            }
+            query.get().addOnSuccessListener(this, snapshots -> {
+                for (DocumentSnapshot doc : snapshots.getDocuments()) {
+                    addDay(doc);
+                }
+                if (!snapshots.isEmpty()) {
+                    lastDay = snapshots.getDocuments().get(snapshots.size() - 1);
+                }
+                daysDone = snapshots.size() < DAY_PAGE;
+                pageLoaded();
+            }).addOnFailureListener(this, this::pageFailed);
+        }
+    }
+
+    private void pageLoaded() {
+        loading = false;
+        adapter.notifyDataSetChanged();
+        // Keep loading until the screen is filled
+        if (rows.size() < LOAD_AHEAD_ROWS * 2) {
+            loadNextPage();
+        }
+    }
+
+    private void pageFailed(Exception e) {
+        loading = false;
+        Log.e(TAG, "Failed to load audit history", e);
+    }
+
+    @SuppressWarnings("unchecked")
+    private void addDay(DocumentSnapshot day) {
+        List<Map<String, Object>> entries = (List<Map<String, Object>>) day.get("entries");
+        if (entries == null) {
+            return;
+        }
+        List<Map<String, Object>> sorted = new ArrayList<>(entries);
+        Collections.sort(sorted, (a, b) -> compareAt(b.get("at"), a.get("at")));
+        for (Map<String, Object> entry : sorted) {
+            addRow(entry);
+        }
+    }
+
+    private static int compareAt(Object a, Object b) {
+        if (!(a instanceof Timestamp) || !(b instanceof Timestamp)) {
+            return 0;
+        }
+        return ((Timestamp) a).compareTo((Timestamp) b);
+    }
+
+    private void addRow(Map<String, Object> entry) {
+        if (entry == null) {
+            return;
+        }
+        Object at = entry.get("at");
+        String when = at instanceof Timestamp
+                ? DateFormat.format("yyyy-MM-dd HH:mm", ((Timestamp) at).toDate()).toString() : "pending";
+        String title = entry.get("field") + ": " + entry.get("oldValue") + " → " + entry.get("newValue");
+        String subtitle = when + " by " + entry.get("actor");
+        rows.add(new String[]{title, subtitle});
+    }
+
+    private class HistoryAdapter extends RecyclerView.Adapter<HistoryAdapter.RowHolder> {
+
+        @NonNull
+        @Override
+        public RowHolder onCreateViewHolder(@NonNull ViewGroup parent, int viewType) {
+            View v = LayoutInflater.from(parent.getContext())
+                    .inflate(android.R.layout.simple_list_item_2, parent, false);
+            return new RowHolder(v);
+        }
+
+        @Override
+        public void onBindViewHolder(@NonNull RowHolder holder, int position) {
+            String[] row = rows.get(position);
+            holder.title.setText(row[0]);
+            holder.subtitle.setText(row[1]);
+        }
+
+        @Override
+        public int getItemCount() {
+            return rows.size();
+        }
+
+        class RowHolder extends RecyclerView.ViewHolder {
+            TextView title, subtitle;
+
+            RowHolder(@NonNull View itemView) {
+                super(itemView);
+                title = itemView.findViewById(android.R.id.text1);
+                subtitle = itemView.findViewById(android.R.id.text2);
+            }
+        }
+    }
+}
@@ -0,0 +1,65 @@
+package com.example.employee_data_app;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import com.google.firebase.firestore.CollectionReference;
+import com.google.firebase.firestore.FieldValue;
+import com.google.firebase.firestore.FirebaseFirestore;
+import com.google.firebase.firestore.Transaction;
+
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+public class AuditLog {
+
+    // Raw entries under users/{uid}/audit, rolled up into users/{uid}/auditDaily/{yyyy-MM-dd}
+    // (with numbered chunks for busy days) by the server-side AuditCompaction job
+    static final String AUDIT = "audit";
+    static final String AUDIT_DAILY = "auditDaily";
+
+    private final FirebaseFirestore fStore;
+    private final String targetUid;
+    private final String actorUid;
+    // Keyed by document id, chosen once so a retried transaction rewrites the same entries
+    private final Map<String, Map<String, Object>> pending = new LinkedHashMap<>();
+
+    public AuditLog(FirebaseFirestore fStore, String targetUid, String actorUid) {
+        this.fStore = fStore;
+        this.targetUid = targetUid;
+        this.actorUid = actorUid;
+    }
+
+    // Buffer one field change; unchanged values are skipped
+    public void record(String field, @Nullable String oldValue, @Nullable String newValue) {
+        if (oldValue == null ? newValue == null : oldValue.equals(newValue)) {
+            return;
+        }
+        Map<String, Object> entry = new HashMap<>();
+        entry.put("field", field);
+        entry.put("oldValue", oldValue);
+        entry.put("newValue", newValue);
+        entry.put("actor", actorUid);
+        entry.put("at", FieldValue.serverTimestamp());
+        pending.put(auditOf(fStore, targetUid).document().getId(), entry);
+    }
+
+    // Write buffered entries as part of the caller's transaction. The buffer is kept and the
+    // ids are fixed, because the same transaction function may run again, even after a commit
+    // whose result was lost; a rerun then overwrites its own entries instead of adding copies.
+    public void writeTo(@NonNull Transaction transaction) {
+        CollectionReference audit = auditOf(fStore, targetUid);
+        for (Map.Entry<String, Map<String, Object>> entry : pending.entrySet()) {
+            transaction.set(audit.document(entry.getKey()), entry.getValue());
+        }
+    }
+
+    static CollectionReference auditOf(FirebaseFirestore fStore, String uid) {
+        return fStore.collection("users").document(uid).collection(AUDIT);
+    }
+
+    static CollectionReference dailyOf(FirebaseFirestore fStore, String uid) {
+        return fStore.collection("users").document(uid).collection(AUDIT_DAILY);
+    }
+}
@@ -0,0 +1,27 @@
+package com.example.employee_data_app;
+
+import android.content.Context;
+
+import androidx.annotation.NonNull;
+import androidx.startup.Initializer;
+
+import com.google.firebase.auth.FirebaseAuth;
+
+import java.util.Collections;
+import java.util.List;
+
+// Created on a background thread by DeferredStartupInitializer, so it no longer blocks the main thread
+public class AuthInitializer extends TimedInitializer<FirebaseAuth> {
+
+    @NonNull
+    @Override
+    protected FirebaseAuth createTimed(@NonNull Context context) {
+        return FirebaseAuth.getInstance();
+    }
+
+    @NonNull
+    @Override
+    public List<Class<? extends Initializer<?>>> dependencies() {
+        return Collections.singletonList(FirebaseAppInitializer.class);
+    }
+}
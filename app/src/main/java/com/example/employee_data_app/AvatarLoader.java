@@ -0,0 +1,259 @@
+package com.example.employee_data_app;
+
+import android.content.Context;
+import android.graphics.Bitmap;
+import android.graphics.BitmapFactory;
+import android.os.Handler;
+import android.os.Looper;
+import android.util.Log;
+import android.util.LruCache;
+import android.widget.ImageView;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import com.google.firebase.storage.FileDownloadTask;
+import com.google.firebase.storage.FirebaseStorage;
+
+import java.io.File;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+public class AvatarLoader {
+
+    private static final String TAG = "AvatarLoader";
+
+    // Bounds for the two cache tiers and the download queue
+    static final long DISK_BUDGET_BYTES = 20L * 1024 * 1024;
+    static final int MAX_CONCURRENT_DOWNLOADS = 4;
+
+    private static AvatarLoader instance;
+
+    private final File diskDir;
+    private final LruCache<String, Bitmap> memoryCache;
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+    private final ExecutorService diskExecutor = Executors.newSingleThreadExecutor();
+
+    // Requests are only touched on the main thread
+    private final Map<String, Request> requests = new HashMap<>();
+    private final ArrayDeque<Request> queue = new ArrayDeque<>();
+    private int running;
+
+    private static class Request {
+        final String key;
+        final String storagePath;
+        final List<ImageView> targets = new ArrayList<>();
+        boolean prefetch;
+        FileDownloadTask download;
+
+        Request(String key, String storagePath) {
+            this.key = key;
+            this.storagePath = storagePath;
+        }
+    }
+
+    public static synchronized AvatarLoader getInstance(Context context) {
+        if (instance == null) {
+            instance = new AvatarLoader(context.getApplicationContext());
+        }
+        return instance;
+    }
+
+    private AvatarLoader(Context context) {
+        diskDir = new File(context.getCacheDir(), "avatars");
+        diskDir.mkdirs();
+
+        int memoryBudget = (int) Math.min(CacheRegistry.budget(context, 16), Integer.MAX_VALUE);
+        memoryCache = new LruCache<String, Bitmap>(memoryBudget) {
+            @Override
+            protected int sizeOf(String key, Bitmap value) {
+                return value.getByteCount();
+            }
+        };
+        // Decoded bitmaps are the cheapest thing to give back under memory pressure
+        CacheRegistry.getInstance().register("avatars", CacheRegistry.PRIORITY_IMAGES, CacheRegistry.of(memoryCache));
+    }
+
+    // Cache key combines the owner and the Storage generation of the thumbnail
+    @Nullable
+    static String keyFor(User user) {
+        if (user.uid == null || user.photoGeneration == null) {
+            return null;
+        }
+        return user.uid + "_" + user.photoGeneration;
+    }
+
+    public void load(@NonNull User user, @NonNull ImageView target) {
+        cancel(target);
+
+        String key = keyFor(user);
+        target.setTag(R.id.avatar_key, key);
+        if (key == null) {
+            target.setImageResource(R.drawable.default_img);
+            return;
+        }
+
+        Bitmap cached = memoryCache.get(key);
+        if (cached != null) {
+            target.setImageBitmap(cached);
+            return;
+        }
+
+        target.setImageResource(R.drawable.default_img);
+        Request request = obtain(key, user.uid);
+        request.targets.add(target);
+        // A prefetch already waiting in the queue is now for a visible row, so it moves to the front
+        if (request.prefetch && queue.remove(request)) {
+            queue.addFirst(request);
+        }
+        request.prefetch = false;
+    }
+
+    // Warm the caches for rows that are about to scroll into view
+    public void prefetch(@NonNull User user) {
+        String key = keyFor(user);
+        if (key == null || memoryCache.get(key) != null || requests.containsKey(key)) {
+            return;
+        }
+        obtain(key, user.uid).prefetch = true;
+    }
+
+    // Detach a recycled view and drop its download if nobody else wants it
+    public void cancel(@NonNull ImageView target) {
+        Object tag = target.getTag(R.id.avatar_key);
+        target.setTag(R.id.avatar_key, null);
+        if (!(tag instanceof String)) {
+            return;
+        }
+        Request request = requests.get(tag);
+        if (request == null) {
+            return;
+        }
+        request.targets.remove(target);
+        if (request.targets.isEmpty() && !request.prefetch) {
+            requests.remove(request.key);
+            if (queue.remove(request)) {
+                return;
+            }
+            if (request.download != null && request.download.isInProgress()) {
+                request.download.cancel();
+            }
+        }
+    }
+
+    private Request obtain(String key, String uid) {
+        Request request = requests.get(key);
+        if (request != null) {
+            return request;
+        }
+        request = new Request(key, ProfileImageUploader.thumbPath(uid));
+        requests.put(key, request);
+        readFromDisk(request);
+        return request;
+    }
+
+    private void readFromDisk(Request request) {
+        File file = diskFile(request.key);
+        diskExecutor.execute(() -> {
+            Bitmap bitmap = file.exists() ? BitmapFactory.decodeFile(file.getPath()) : null;
+            if (bitmap != null) {
+                file.setLastModified(System.currentTimeMillis());
+            }
+            mainHandler.post(() -> {
+                if (bitmap != null) {
+                    deliver(request, bitmap);
+                } else if (requests.get(request.key) == request) {
+                    enqueue(request);
+                }
+            });
+        });
+    }
+
+    private void enqueue(Request request) {
+        // Visible rows jump ahead of prefetches
+        if (request.prefetch) {
+            queue.addLast(request);
+        } else {
+            queue.addFirst(request);
+        }
+        drain();
+    }
+
+    private void drain() {
+        while (running < MAX_CONCURRENT_DOWNLOADS && !queue.isEmpty()) {
+            download(queue.poll());
+        }
+    }
+
+    private void download(Request request) {
+        File file = diskFile(request.key);
+        File partial = new File(diskDir, request.key + ".part");
+        running++;
+        request.download = FirebaseStorage.getInstance().getReference().child(request.storagePath).getFile(partial);
+        request.download.addOnCompleteListener(task -> {
+            running--;
+            request.download = null;
+            if (task.isSuccessful() && partial.renameTo(file)) {
+                readFromDisk(request);
+                trimDisk();
+            } else {
+                partial.delete();
+                if (!task.isCanceled()) {
+                    Log.d(TAG, "Avatar download failed for " + request.storagePath);
+                }
+                // A newer request for the same key may have replaced this one
+                if (requests.get(request.key) == request) {
+                    requests.remove(request.key);
+                }
+            }
+            drain();
+        });
+    }
+
+    private void deliver(Request request, Bitmap bitmap) {
+        memoryCache.put(request.key, bitmap);
+        if (requests.get(request.key) == request) {
+            requests.remove(request.key);
+        }
+        for (ImageView target : request.targets) {
+            if (request.key.equals(target.getTag(R.id.avatar_key))) {
+                target.setImageBitmap(bitmap);
+            }
+        }
+    }
+
+    private File diskFile(String key) {
+        return new File(diskDir, key + ".jpg");
+    }
+
+    // Evict least recently used files once the disk tier is over budget
+    private void trimDisk() {
+        diskExecutor.execute(() -> {
+            File[] files = diskDir.listFiles((dir, name) -> name.endsWith(".jpg"));
+            if (files == null) {
+                return;
+            }
+            long total = 0;
+            for (File f : files) {
+                total += f.length();
+            }
+            if (total <= DISK_BUDGET_BYTES) {
+                return;
+            }
+            Arrays.sort(files, (a, b) -> Long.compare(a.lastModified(), b.lastModified()));
+            for (File f : files) {
+                if (total <= DISK_BUDGET_BYTES) {
+                    break;
+                }
+                total -= f.length();
+                f.delete();
+            }
+        });
+    }
+}
@@ -0,0 +1,179 @@
+package com.example.employee_data_app;
+
+import android.app.ActivityManager;
+import android.content.ComponentCallbacks2;
+import android.content.Context;
+import android.util.Log;
+import android.util.LruCache;
+
+import androidx.annotation.NonNull;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+public class CacheRegistry {
+
+    private static final String TAG = "CacheRegistry";
+
+    // Lower priorities are shrunk first; the live directory goes last
+    static final int PRIORITY_IMAGES = 0;
+    static final int PRIORITY_DERIVED = 1;
+    static final int PRIORITY_INDEX = 2;
+    static final int PRIORITY_DATA = 3;
+
+    public interface Cache {
+        long sizeBytes();
+
+        long budgetBytes();
+
+        // Evict the costliest or least recently used entries until at most maxBytes remain
+        void trimToBytes(long maxBytes);
+    }
+
+    private static class Entry {
+        final String name;
+        final int priority;
+        final Cache cache;
+
+        Entry(String name, int priority, Cache cache) {
+            this.name = name;
+            this.priority = priority;
+            this.cache = cache;
+        }
+    }
+
+    // Share of each cache kept per trim level, indexed by priority
+    private static final float[] KEEP_RUNNING_MODERATE = {0.5f, 1f, 1f, 1f};
+    private static final float[] KEEP_RUNNING_LOW = {0.25f, 0.5f, 1f, 1f};
+    private static final float[] KEEP_RUNNING_CRITICAL = {0f, 0f, 0.5f, 1f};
+    private static final float[] KEEP_UI_HIDDEN = {0.5f, 1f, 1f, 1f};
+    private static final float[] KEEP_BACKGROUND = {0f, 0.5f, 1f, 1f};
+    private static final float[] KEEP_MODERATE = {0f, 0f, 0.5f, 1f};
+    private static final float[] KEEP_COMPLETE = {0f, 0f, 0f, 0.5f};
+
+    private static CacheRegistry instance;
+
+    // Only touched on the main thread
+    private final List<Entry> entries = new ArrayList<>();
+
+    public static synchronized CacheRegistry getInstance() {
+        if (instance == null) {
+            instance = new CacheRegistry();
+        }
+        return instance;
+    }
+
+    // A share of the heap, halved on low-RAM devices
+    static long budget(Context context, int heapDivisor) {
+        long heap = Runtime.getRuntime().maxMemory();
+        ActivityManager activityManager = (ActivityManager) context.getSystemService(Context.ACTIVITY_SERVICE);
+        if (activityManager != null && activityManager.isLowRamDevice()) {
+            heap /= 2;
+        }
+        return heap / heapDivisor;
+    }
+
+    // LruCaches sized in bytes already evict by cost; this exposes them to the registry
+    static Cache of(@NonNull LruCache<?, ?> cache) {
+        return new Cache() {
+            @Override
+            public long sizeBytes() {
+                return cache.size();
+            }
+
+            @Override
+            public long budgetBytes() {
+                return cache.maxSize();
+            }
+
+            @Override
+            public void trimToBytes(long maxBytes) {
+                cache.trimToSize((int) Math.min(maxBytes, Integer.MAX_VALUE));
+            }
+        };
+    }
+
+    // Registering under an existing name replaces the old cache
+    public void register(String name, int priority, @NonNull Cache cache) {
+        for (int i = entries.size() - 1; i >= 0; i--) {
+            if (entries.get(i).name.equals(name)) {
+                entries.remove(i);
+            }
+        }
+        entries.add(new Entry(name, priority, cache));
+        Collections.sort(entries, (a, b) -> Integer.compare(a.priority, b.priority));
+    }
+
+    // Only the cache that was registered is removed: an activity recreated in place registers
+    // its replacement before the old instance is destroyed
+    public void unregister(String name, @NonNull Cache cache) {
+        for (int i = entries.size() - 1; i >= 0; i--) {
+            if (entries.get(i).name.equals(name) && entries.get(i).cache == cache) {
+                entries.remove(i);
+            }
+        }
+    }
+
+    public void onTrimMemory(int level) {
+        float[] keep;
+        if (level >= ComponentCallbacks2.TRIM_MEMORY_COMPLETE) {
+            keep = KEEP_COMPLETE;
+        } else if (level >= ComponentCallbacks2.TRIM_MEMORY_MODERATE) {
+            keep = KEEP_MODERATE;
+        } else if (level >= ComponentCallbacks2.TRIM_MEMORY_BACKGROUND) {
+            keep = KEEP_BACKGROUND;
+        } else if (level >= ComponentCallbacks2.TRIM_MEMORY_UI_HIDDEN) {
+            keep = KEEP_UI_HIDDEN;
+        } else if (level >= ComponentCallbacks2.TRIM_MEMORY_RUNNING_CRITICAL) {
+            keep = KEEP_RUNNING_CRITICAL;
+        } else if (level >= ComponentCallbacks2.TRIM_MEMORY_RUNNING_LOW) {
+            keep = KEEP_RUNNING_LOW;
+        } else {
+            keep = KEEP_RUNNING_MODERATE;
+        }
+        trim(keep);
+        Log.d(TAG, "onTrimMemory(" + level + "): " + describe());
+    }
+
+    public void onLowMemory() {
+        trim(KEEP_COMPLETE);
+        Log.d(TAG, "onLowMemory: " + describe());
+    }
+
+    // Entries are kept sorted, so caches are shrunk in priority order
+    private void trim(float[] keep) {
+        for (Entry entry : new ArrayList<>(entries)) {
+            float fraction = keep[Math.min(entry.priority, keep.length - 1)];
+            if (fraction >= 1f) {
+                continue;
+            }
+            long size = Math.min(entry.cache.sizeBytes(), entry.cache.budgetBytes());
+            entry.cache.trimToBytes((long) (size * fraction));
+        }
+    }
+
+    // Bytes currently held by each registered cache, for diagnostics
+    public Map<String, Long> usage() {
+        Map<String, Long> usage = new LinkedHashMap<>();
+        for (Entry entry : entries) {
+            usage.put(entry.name, entry.cache.sizeBytes());
+        }
+        return usage;
+    }
+
+    public String describe() {
+        StringBuilder sb = new StringBuilder();
+        for (Entry entry : entries) {
+            if (sb.length() > 0) {
+                sb.append(", ");
+            }
+            sb.append(String.format(Locale.ROOT, "%s %.1f/%.1f KB", entry.name,
+                    entry.cache.sizeBytes() / 1024f, entry.cache.budgetBytes() / 1024f));
+        }
+        return sb.toString();
+    }
+}
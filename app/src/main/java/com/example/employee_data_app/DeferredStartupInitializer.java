@@ -0,0 +1,47 @@
+package com.example.employee_data_app;
+
+import android.content.Context;
+import android.os.Handler;
+import android.os.Looper;
+import android.os.SystemClock;
+
+import androidx.annotation.NonNull;
+import androidx.startup.AppInitializer;
+import androidx.startup.Initializer;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+// Work that is not needed for the first frame stays off the main thread's startup path
+public class DeferredStartupInitializer extends TimedInitializer<Boolean> {
+
+    private static final ExecutorService executor = Executors.newSingleThreadExecutor();
+
+    @NonNull
+    @Override
+    protected Boolean createTimed(@NonNull Context context) {
+        Context appContext = context.getApplicationContext();
+        Handler main = new Handler(Looper.getMainLooper());
+        // Auth is created in parallel with the first Activity; if LaunchActivity asks first,
+        // getInstance() waits for this instead of starting a second one
+        executor.execute(() -> {
+            AppInitializer.getInstance(appContext).initializeComponent(AuthInitializer.class);
+            main.post(() -> Looper.myQueue().addIdleHandler(() -> {
+                long start = SystemClock.elapsedRealtime();
+                // Finish a registration the process was killed in the middle of
+                RegistrationPipeline.getInstance(appContext).resumePending();
+                StartupTimings.record("RegistrationPipeline.resumePending", start);
+                return false;
+            }));
+        });
+        return true;
+    }
+
+    @NonNull
+    @Override
+    public List<Class<? extends Initializer<?>>> dependencies() {
+        return Collections.singletonList(FirestoreInitializer.class);
+    }
+}
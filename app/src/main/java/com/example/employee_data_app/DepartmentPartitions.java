@@ -0,0 +1,155 @@
+package com.example.employee_data_app;
+
+import android.content.Context;
+import android.content.SharedPreferences;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import com.google.firebase.firestore.DocumentSnapshot;
+import com.google.firebase.firestore.FirebaseFirestore;
+import com.google.firebase.firestore.FirebaseFirestoreException;
+import com.google.firebase.firestore.ListenerRegistration;
+import com.google.firebase.firestore.QuerySnapshot;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+public class DepartmentPartitions {
+
+    // Stored on every user document; admins list theirs in managedDepartments
+    static final String FIELD = "department";
+    static final String MANAGED = "managedDepartments";
+    static final String UNASSIGNED = "Unassigned";
+
+    private static final String PREFS = "department_sections";
+
+    public interface Listener {
+        // first is true for the initial snapshot of a freshly expanded partition
+        void onPartitionChanged(String department, QuerySnapshot value, boolean first);
+
+        void onPartitionError(String department, FirebaseFirestoreException error);
+    }
+
+    private final FirebaseFirestore db;
+    private final Listener listener;
+    private final SharedPreferences prefs;
+    private final String adminUid;
+    // One listener per expanded department, attached when its section is opened
+    private final Map<String, ListenerRegistration> attached = new LinkedHashMap<>();
+    private final Set<String> loaded = new HashSet<>();
+    private List<String> managed = new ArrayList<>();
+    private EmployeeDirectory.SortOrder order = EmployeeDirectory.SortOrder.NAME;
+
+    public DepartmentPartitions(Context context, FirebaseFirestore db, String adminUid, Listener listener) {
+        this.db = db;
+        this.listener = listener;
+        this.adminUid = adminUid;
+        this.prefs = context.getApplicationContext().getSharedPreferences(PREFS, Context.MODE_PRIVATE);
+    }
+
+    // Scope comes from the admin's own profile; admins without one manage every department
+    static List<String> managedBy(@Nullable DocumentSnapshot admin, String[] allDepartments) {
+        Object value = admin != null ? admin.get(MANAGED) : null;
+        List<String> departments = new ArrayList<>();
+        if (value instanceof List) {
+            for (Object department : (List<?>) value) {
+                if (department instanceof String) {
+                    departments.add((String) department);
+                }
+            }
+        }
+        return departments.isEmpty() ? Arrays.asList(allDepartments) : departments;
+    }
+
+    public void setManaged(@NonNull List<String> departments) {
+        managed = new ArrayList<>(departments);
+        for (String department : new ArrayList<>(attached.keySet())) {
+            if (!managed.contains(department)) {
+                collapse(department);
+            }
+        }
+    }
+
+    // Every profile carries all sort fields, so a new order only applies to sections opened later;
+    // partitions already attached return the same documents and are re-sorted locally
+    public void setOrder(@NonNull EmployeeDirectory.SortOrder order) {
+        this.order = order;
+    }
+
+    public List<String> getManaged() {
+        return managed;
+    }
+
+    // Sections opened last time, or the first managed department on a fresh install
+    public Set<String> savedExpanded() {
+        Set<String> saved = prefs.getStringSet(adminUid, null);
+        Set<String> expanded = new HashSet<>();
+        if (saved == null) {
+            if (!managed.isEmpty()) {
+                expanded.add(managed.get(0));
+            }
+            return expanded;
+        }
+        for (String department : saved) {
+            if (managed.contains(department)) {
+                expanded.add(department);
+            }
+        }
+        return expanded;
+    }
+
+    public boolean isExpanded(String department) {
+        return attached.containsKey(department);
+    }
+
+    public Set<String> expanded() {
+        return new HashSet<>(attached.keySet());
+    }
+
+    public void expand(String department) {
+        if (attached.containsKey(department) || !managed.contains(department)) {
+            return;
+        }
+        attached.put(department, db.collection("users")
+                .whereEqualTo(FIELD, department)
+                .orderBy(order.field)
+                .addSnapshotListener((value, error) -> {
+                    if (error != null) {
+                        listener.onPartitionError(department, error);
+                        return;
+                    }
+                    if (value == null || !attached.containsKey(department)) {
+                        return;
+                    }
+                    listener.onPartitionChanged(department, value, loaded.add(department));
+                }));
+        save();
+    }
+
+    public void collapse(String department) {
+        ListenerRegistration registration = attached.remove(department);
+        if (registration != null) {
+            registration.remove();
+        }
+        loaded.remove(department);
+        save();
+    }
+
+    public void stop() {
+        for (ListenerRegistration registration : attached.values()) {
+            registration.remove();
+        }
+        attached.clear();
+        loaded.clear();
+    }
+
+    private void save() {
+        prefs.edit().putStringSet(adminUid, new HashSet<>(attached.keySet())).apply();
+    }
+}
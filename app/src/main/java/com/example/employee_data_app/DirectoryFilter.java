@@ -0,0 +1,275 @@
+package com.example.employee_data_app;
+
+import android.os.Handler;
+import android.os.Looper;
+
+import androidx.annotation.NonNull;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Calendar;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Predicate;
+
+public class DirectoryFilter {
+
+    // Built-in facet keys; phone prefixes are added on demand with PHONE_PREFIX + digits
+    public static final String UNVERIFIED = "unverified";
+    public static final String ROLE_USER = "role:user";
+    public static final String ROLE_ADMIN = "role:admin";
+    public static final String REGISTERED_THIS_MONTH = "registered:month";
+    public static final String DUPLICATE = "duplicate";
+    public static final String PHONE_PREFIX = "phone:";
+
+    public interface Callback {
+        void onFiltered(int[] positions);
+    }
+
+    private static class Facet {
+        final Predicate<User> predicate;
+        final BitSet bits = new BitSet();
+
+        Facet(Predicate<User> predicate) {
+            this.predicate = predicate;
+        }
+    }
+
+    private static final ExecutorService executor = Executors.newSingleThreadExecutor();
+
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+    private final Map<String, Facet> facets = new LinkedHashMap<>();
+    // Phone prefix facets form the search index; access ordered so the coldest is evicted first
+    private final LinkedHashMap<String, Facet> prefixes = new LinkedHashMap<>(16, 0.75f, true);
+    private long searchIndexBudget = Long.MAX_VALUE;
+    // Start of the month the registered-this-month bits were computed for
+    private long registeredSince;
+
+    // Each user owns a stable slot, so sorted inserts never shift the bitsets
+    private final Map<String, Integer> slotById = new HashMap<>();
+    private final ArrayList<User> bySlot = new ArrayList<>();
+    private final ArrayDeque<Integer> freeSlots = new ArrayDeque<>();
+    private final BitSet occupied = new BitSet();
+
+    public DirectoryFilter() {
+        facets.put(UNVERIFIED, new Facet(u -> u.emailVerified == null || !u.emailVerified));
+        facets.put(ROLE_USER, new Facet(u -> u.isUser != null));
+        facets.put(ROLE_ADMIN, new Facet(u -> u.isAdmin != null));
+        facets.put(DUPLICATE, new Facet(u -> u.duplicateFields != null && !u.duplicateFields.isEmpty()));
+        registeredSince = startOfMonth();
+        facets.put(REGISTERED_THIS_MONTH, new Facet(u -> u.registeredAt != null
+                && u.registeredAt.toDate().getTime() >= registeredSince));
+    }
+
+    // The month facet is rebuilt once the calendar month rolls over
+    private void refreshMonth() {
+        long monthStart = startOfMonth();
+        if (monthStart == registeredSince) {
+            return;
+        }
+        registeredSince = monthStart;
+        Facet facet = facets.get(REGISTERED_THIS_MONTH);
+        for (int slot = occupied.nextSetBit(0); slot >= 0; slot = occupied.nextSetBit(slot + 1)) {
+            facet.bits.set(slot, facet.predicate.test(bySlot.get(slot)));
+        }
+    }
+
+    void add(@NonNull User user) {
+        if (user.uid == null) {
+            return;
+        }
+        Integer slot = freeSlots.poll();
+        if (slot == null) {
+            slot = bySlot.size();
+            bySlot.add(user);
+        } else {
+            bySlot.set(slot, user);
+        }
+        slotById.put(user.uid, slot);
+        occupied.set(slot);
+        for (Facet facet : facets.values()) {
+            facet.bits.set(slot, facet.predicate.test(user));
+        }
+        for (Facet facet : prefixes.values()) {
+            facet.bits.set(slot, facet.predicate.test(user));
+        }
+    }
+
+    void remove(String uid) {
+        Integer slot = slotById.remove(uid);
+        if (slot == null) {
+            return;
+        }
+        bySlot.set(slot, null);
+        occupied.clear(slot);
+        freeSlots.add(slot);
+        for (Facet facet : facets.values()) {
+            facet.bits.clear(slot);
+        }
+        for (Facet facet : prefixes.values()) {
+            facet.bits.clear(slot);
+        }
+    }
+
+    void clear() {
+        slotById.clear();
+        bySlot.clear();
+        freeSlots.clear();
+        occupied.clear();
+        for (Facet facet : facets.values()) {
+            facet.bits.clear();
+        }
+        prefixes.clear();
+    }
+
+    int slotOf(@NonNull User user) {
+        Integer slot = user.uid != null ? slotById.get(user.uid) : null;
+        return slot != null ? slot : -1;
+    }
+
+    // Phone prefix facets are built on first use, then maintained like the others until evicted
+    public String phonePrefix(@NonNull String prefix) {
+        String key = PHONE_PREFIX + prefix;
+        if (prefixes.get(key) == null) {
+            Facet facet = new Facet(u -> u.phone != null && u.phone.startsWith(prefix));
+            for (int slot = occupied.nextSetBit(0); slot >= 0; slot = occupied.nextSetBit(slot + 1)) {
+                facet.bits.set(slot, facet.predicate.test(bySlot.get(slot)));
+            }
+            prefixes.put(key, facet);
+            trimSearchIndex(searchIndexBudget);
+        }
+        return key;
+    }
+
+    // An evicted prefix is rebuilt from the slots when a filter asks for it again
+    private Facet facet(String key) {
+        Facet facet = facets.get(key);
+        if (facet == null && key.startsWith(PHONE_PREFIX)) {
+            phonePrefix(key.substring(PHONE_PREFIX.length()));
+            facet = prefixes.get(key);
+        }
+        return facet;
+    }
+
+    void setSearchIndexBudget(long budgetBytes) {
+        searchIndexBudget = budgetBytes;
+        trimSearchIndex(budgetBytes);
+    }
+
+    long searchIndexBytes() {
+        long bytes = 0;
+        for (Facet facet : prefixes.values()) {
+            bytes += facet.bits.size() / 8;
+        }
+        return bytes;
+    }
+
+    // Drop least recently used prefixes; the newest survives unless everything must go
+    void trimSearchIndex(long maxBytes) {
+        Iterator<Map.Entry<String, Facet>> it = prefixes.entrySet().iterator();
+        while (it.hasNext() && searchIndexBytes() > maxBytes && prefixes.size() > 1) {
+            it.next();
+            it.remove();
+        }
+        if (maxBytes == 0) {
+            prefixes.clear();
+        }
+    }
+
+    CacheRegistry.Cache searchIndex() {
+        return new CacheRegistry.Cache() {
+            @Override
+            public long sizeBytes() {
+                return searchIndexBytes();
+            }
+
+            @Override
+            public long budgetBytes() {
+                return searchIndexBudget;
+            }
+
+            @Override
+            public void trimToBytes(long maxBytes) {
+                trimSearchIndex(maxBytes);
+            }
+        };
+    }
+
+    // Same combination as evaluate for a single row, cheap enough to run on the main thread
+    boolean matches(@NonNull List<List<String>> clauses, @NonNull User user) {
+        int slot = slotOf(user);
+        if (slot < 0) {
+            return false;
+        }
+        refreshMonth();
+        for (List<String> clause : clauses) {
+            boolean any = false;
+            for (String key : clause) {
+                Facet facet = facet(key);
+                if (facet != null && facet.bits.get(slot)) {
+                    any = true;
+                    break;
+                }
+            }
+            if (!any) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // Clauses are ANDed together; the facets inside one clause are ORed
+    public void evaluate(@NonNull List<List<String>> clauses, @NonNull int[] slotOrder, @NonNull Callback callback) {
+        refreshMonth();
+        // Only the bitsets are copied here; the combining runs on the executor
+        List<List<BitSet>> copies = new ArrayList<>();
+        for (List<String> clause : clauses) {
+            List<BitSet> clauseBits = new ArrayList<>();
+            for (String key : clause) {
+                Facet facet = facet(key);
+                if (facet != null) {
+                    clauseBits.add((BitSet) facet.bits.clone());
+                }
+            }
+            copies.add(clauseBits);
+        }
+        BitSet base = (BitSet) occupied.clone();
+
+        executor.execute(() -> {
+            for (List<BitSet> clauseBits : copies) {
+                BitSet any = new BitSet();
+                for (BitSet bits : clauseBits) {
+                    any.or(bits);
+                }
+                base.and(any);
+            }
+            int[] positions = new int[base.cardinality()];
+            int count = 0;
+            for (int i = 0; i < slotOrder.length && count < positions.length; i++) {
+                int slot = slotOrder[i];
+                if (slot >= 0 && base.get(slot)) {
+                    positions[count++] = i;
+                }
+            }
+            int[] result = count == positions.length ? positions : Arrays.copyOf(positions, count);
+            mainHandler.post(() -> callback.onFiltered(result));
+        });
+    }
+
+    private static long startOfMonth() {
+        Calendar calendar = Calendar.getInstance();
+        calendar.set(Calendar.DAY_OF_MONTH, 1);
+        calendar.set(Calendar.HOUR_OF_DAY, 0);
+        calendar.set(Calendar.MINUTE, 0);
+        calendar.set(Calendar.SECOND, 0);
+        calendar.set(Calendar.MILLISECOND, 0);
+        return calendar.getTimeInMillis();
+    }
+}
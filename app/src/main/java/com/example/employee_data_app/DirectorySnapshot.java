@@ -0,0 +1,183 @@
+package com.example.employee_data_app;
+
+import android.content.Context;
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import com.google.firebase.Timestamp;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+public class DirectorySnapshot {
+
+    private static final String TAG = "DirectorySnapshot";
+    private static final int VERSION = 3;
+    // Also matches the shared directory_snapshot.bin written by older versions
+    private static final String FILE_PREFIX = "directory_snapshot";
+
+    // Rows kept on each side of the first visible row
+    static final int WINDOW_ROWS = 60;
+
+    private static final ExecutorService executor = Executors.newSingleThreadExecutor();
+
+    final EmployeeDirectory.SortOrder order;
+    final List<User> users;
+    @Nullable final String anchorUid;
+    final int anchorOffset;
+
+    DirectorySnapshot(EmployeeDirectory.SortOrder order, List<User> users, @Nullable String anchorUid, int anchorOffset) {
+        this.order = order;
+        this.users = users;
+        this.anchorUid = anchorUid;
+        this.anchorOffset = anchorOffset;
+    }
+
+    // One file per admin, so a second account on the device never sees the first one's rows
+    static File fileFor(Context context, String uid) {
+        return new File(context.getCacheDir(), FILE_PREFIX + "_" + uid + ".bin");
+    }
+
+    // Queued behind any pending write, so a save racing the sign-out cannot bring a file back
+    static void deleteAll(Context context) {
+        File cacheDir = context.getCacheDir();
+        executor.execute(() -> {
+            File[] files = cacheDir.listFiles((dir, name) -> name.startsWith(FILE_PREFIX));
+            if (files != null) {
+                for (File file : files) {
+                    file.delete();
+                }
+            }
+        });
+    }
+
+    // Copy the window on the caller's thread, encode and write it on the executor
+    static void writeAsync(@NonNull File file, @NonNull EmployeeDirectory directory, int firstVisible, int anchorOffset) {
+        int from = Math.max(0, firstVisible - WINDOW_ROWS);
+        int to = Math.min(directory.size(), firstVisible + WINDOW_ROWS);
+        List<User> window = new ArrayList<>(directory.users.subList(from, to));
+        String anchorUid = firstVisible >= 0 && firstVisible < directory.size()
+                ? directory.get(firstVisible).uid : null;
+        DirectorySnapshot snapshot = new DirectorySnapshot(directory.getOrder(), window, anchorUid, anchorOffset);
+
+        executor.execute(() -> {
+            File tmp = new File(file.getPath() + ".tmp");
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tmp)))) {
+                snapshot.writeTo(out);
+            } catch (IOException e) {
+                Log.e(TAG, "Failed to write directory snapshot", e);
+                tmp.delete();
+                return;
+            }
+            if (!tmp.renameTo(file)) {
+                tmp.delete();
+            }
+        });
+    }
+
+    // Small enough to read synchronously while the Activity is being recreated
+    @Nullable
+    static DirectorySnapshot read(@NonNull File file) {
+        if (!file.exists()) {
+            return null;
+        }
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+            if (in.readInt() != VERSION) {
+                return null;
+            }
+            EmployeeDirectory.SortOrder order = EmployeeDirectory.SortOrder.values()[in.readByte()];
+            String anchorUid = readString(in);
+            int anchorOffset = in.readInt();
+            int count = in.readInt();
+            List<User> users = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                users.add(readUser(in));
+            }
+            return new DirectorySnapshot(order, users, anchorUid, anchorOffset);
+        } catch (IOException | RuntimeException e) {
+            Log.e(TAG, "Discarding unreadable directory snapshot", e);
+            file.delete();
+            return null;
+        }
+    }
+
+    private void writeTo(DataOutputStream out) throws IOException {
+        out.writeInt(VERSION);
+        out.writeByte(order.ordinal());
+        writeString(out, anchorUid);
+        out.writeInt(anchorOffset);
+        out.writeInt(users.size());
+        for (User user : users) {
+            writeString(out, user.uid);
+            writeString(out, user.fName);
+            writeString(out, user.email);
+            writeString(out, user.phone);
+            writeString(out, user.photoGeneration);
+            writeString(out, user.department);
+            writeString(out, user.isUser);
+            writeString(out, user.isAdmin);
+            out.writeByte(user.emailVerified == null ? -1 : (user.emailVerified ? 1 : 0));
+            out.writeBoolean(user.registeredAt != null);
+            if (user.registeredAt != null) {
+                out.writeLong(user.registeredAt.getSeconds());
+                out.writeInt(user.registeredAt.getNanoseconds());
+            }
+            // Kept so the duplicate facet works on restored rows before the listeners refill
+            out.writeInt(user.duplicateFields != null ? user.duplicateFields.size() : -1);
+            if (user.duplicateFields != null) {
+                for (String field : user.duplicateFields) {
+                    out.writeUTF(field);
+                }
+            }
+        }
+    }
+
+    private static User readUser(DataInputStream in) throws IOException {
+        User user = new User();
+        user.uid = readString(in);
+        user.fName = readString(in);
+        user.email = readString(in);
+        user.phone = readString(in);
+        user.photoGeneration = readString(in);
+        user.department = readString(in);
+        user.isUser = readString(in);
+        user.isAdmin = readString(in);
+        byte verified = in.readByte();
+        user.emailVerified = verified < 0 ? null : verified == 1;
+        if (in.readBoolean()) {
+            user.registeredAt = new Timestamp(in.readLong(), in.readInt());
+        }
+        int duplicates = in.readInt();
+        if (duplicates >= 0) {
+            user.duplicateFields = new ArrayList<>(duplicates);
+            for (int i = 0; i < duplicates; i++) {
+                user.duplicateFields.add(in.readUTF());
+            }
+        }
+        return user;
+    }
+
+    private static void writeString(DataOutputStream out, @Nullable String value) throws IOException {
+        out.writeBoolean(value != null);
+        if (value != null) {
+            out.writeUTF(value);
+        }
+    }
+
+    @Nullable
+    private static String readString(DataInputStream in) throws IOException {
+        return in.readBoolean() ? in.readUTF() : null;
+    }
+}
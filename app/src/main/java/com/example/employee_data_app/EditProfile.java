@@ -12,10 +12,13 @@ import android.widget.Toast;
 
 import com.google.android.gms.tasks.OnFailureListener;
 import com.google.android.gms.tasks.OnSuccessListener;
+import com.google.android.gms.tasks.Task;
+import com.google.android.gms.tasks.Tasks;
 import com.google.firebase.auth.FirebaseAuth;
 import com.google.firebase.auth.FirebaseUser;
 import com.google.firebase.firestore.DocumentReference;
 import com.google.firebase.firestore.FirebaseFirestore;
+import com.google.firebase.firestore.Transaction;
 
 import java.util.HashMap;
 import java.util.Map;
@@ -28,6 +31,8 @@ public class EditProfile extends AppCompatActivity {
     FirebaseUser user;
 
     Button saveBtn;
+    UniquenessIndex uniquenessIndex;
+    String oldEmail, oldPhone, oldFullName;
     @Override
     protected void onCreate(Bundle savedInstanceState) {
         super.onCreate(savedInstanceState);
@@ -45,6 +50,10 @@ public class EditProfile extends AppCompatActivity {
         fAuth = FirebaseAuth.getInstance();
         fStore = FirebaseFirestore.getInstance();
         user = fAuth.getCurrentUser();
+        uniquenessIndex = new UniquenessIndex(fStore);
+        oldEmail = email;
+        oldPhone = phone;
+        oldFullName = fullName;
 
         profileEmail.setText(email);
         profileFullname.setText(fullName);
@@ -59,29 +68,61 @@ public class EditProfile extends AppCompatActivity {
                     Toast.makeText(EditProfile.this, "One or Many fields are empty.", Toast.LENGTH_SHORT).show();
                     return;
                 }
-                String email = profileEmail.getText().toString();
-                user.updateEmail(email).addOnSuccessListener(new OnSuccessListener<Void>() {
+                if (!UniquenessIndex.isValidEmail(profileEmail.getText().toString().trim())) {
+                    profileEmail.setError("Please enter a valid email address");
+                    return;
+                }
+                // A second tap while the first save is running is ignored
+                RequestGate gate = RequestGate.getInstance();
+                if (gate.isInFlight(RequestGate.PROFILE_WRITE, user.getUid())) {
+                    return;
+                }
+                String email = profileEmail.getText().toString().trim();
+                DocumentReference docRef = fStore.collection("users").document(user.getUid());
+                Map<String,Object> edited = new HashMap<>();
+                edited.put("email",email);
+                edited.put("fName",profileFullname.getText().toString());
+                edited.put("phone", profilePhone.getText().toString());
+                edited.put(User.NAME_KEY, User.sortKey(profileFullname.getText().toString()));
+                edited.put(User.EMAIL_KEY, User.sortKey(email));
+                String newPhone = profilePhone.getText().toString();
+                AuditLog auditLog = new AuditLog(fStore, user.getUid(), user.getUid());
+                auditLog.record("fName", oldFullName, profileFullname.getText().toString());
+                auditLog.record("email", oldEmail, email);
+                auditLog.record("phone", oldPhone, newPhone);
+
+                // The index claim comes first, so Auth only changes to an email this user now owns.
+                // Both steps are idempotent, so the whole save can be retried.
+                gate.run(RequestGate.PROFILE_WRITE, user.getUid(), () -> fStore.runTransaction((Transaction.Function<Void>) transaction -> {
+                    uniquenessIndex.move(transaction, user.getUid(), oldEmail, email, oldPhone, newPhone);
+                    transaction.update(docRef, edited);
+                    auditLog.writeTo(transaction);
+                    return null;
+                }).continueWithTask(saved -> {
+                    if (!saved.isSuccessful() || email.equalsIgnoreCase(user.getEmail())) {
+                        return saved;
+                    }
+                    return user.updateEmail(email).continueWithTask(updated -> {
+                        if (updated.isSuccessful() || oldEmail == null) {
+                            return updated;
+                        }
+                        return revertEmail(email, newPhone)
+                                .continueWithTask(reverted -> Tasks.<Void>forException(updated.getException()));
+                    });
+                })).addOnSuccessListener(new OnSuccessListener<Void>() {
                     @Override
                     public void onSuccess(Void unused) {
-                        DocumentReference docRef = fStore.collection("users").document(user.getUid());
-                        Map<String,Object> edited = new HashMap<>();
-                        edited.put("email",email);
-                        edited.put("fName",profileFullname.getText().toString());
-                        edited.put("phone", profilePhone.getText().toString());
-                        docRef.update(edited).addOnSuccessListener(new OnSuccessListener<Void>() {
-                            @Override
-                            public void onSuccess(Void unused) {
-                                Toast.makeText(EditProfile.this, "Profile Updated", Toast.LENGTH_SHORT).show();
-                                startActivity(new Intent(getApplicationContext(), MainActivity.class));
-                                finish();
-                            }
-                        });
-
                         Toast.makeText(EditProfile.this, "Profile Updated", Toast.LENGTH_SHORT).show();
+                        startActivity(new Intent(getApplicationContext(), MainActivity.class));
+                        finish();
                     }
                 }).addOnFailureListener(new OnFailureListener() {
                     @Override
                     public void onFailure(@NonNull Exception e) {
+                        if (UniquenessIndex.isTaken(e)) {
+                            (UniquenessIndex.isEmailTaken(e) ? profileEmail : profilePhone).setError(e.getMessage());
+                            return;
+                        }
                         Toast.makeText(EditProfile.this, e.getMessage(), Toast.LENGTH_SHORT).show();
                     }
                 });
@@ -89,4 +130,20 @@ public class EditProfile extends AppCompatActivity {
         });
 
     }
+
+    // Auth refused the new email: give the index key back and restore the profile's email
+    private Task<Void> revertEmail(String email, String phone) {
+        DocumentReference docRef = fStore.collection("users").document(user.getUid());
+        AuditLog auditLog = new AuditLog(fStore, user.getUid(), user.getUid());
+        auditLog.record("email", email, oldEmail);
+        Map<String, Object> restored = new HashMap<>();
+        restored.put("email", oldEmail);
+        restored.put(User.EMAIL_KEY, User.sortKey(oldEmail));
+        return fStore.runTransaction((Transaction.Function<Void>) transaction -> {
+            uniquenessIndex.move(transaction, user.getUid(), email, oldEmail, phone, phone);
+            transaction.update(docRef, restored);
+            auditLog.writeTo(transaction);
+            return null;
+        });
+    }
 }
\ No newline at end of file
@@ -0,0 +1,64 @@
+package com.example.employee_data_app;
+
+import android.app.Activity;
+import android.app.Application;
+import android.os.Bundle;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+public class EmployeeApp extends Application {
+
+    @Override
+    public void onCreate() {
+        super.onCreate();
+        // Firebase is set up earlier, in dependency order, by the App Startup initializers
+
+        // Presence follows the app moving between foreground and background
+        registerActivityLifecycleCallbacks(new ActivityLifecycleCallbacks() {
+            private int started;
+
+            @Override
+            public void onActivityStarted(@NonNull Activity activity) {
+                if (started++ == 0) {
+                    PresenceTracker.getInstance().onActive();
+                }
+            }
+
+            @Override
+            public void onActivityStopped(@NonNull Activity activity) {
+                if (--started == 0) {
+                    PresenceTracker.getInstance().onBackground();
+                }
+            }
+
+            @Override
+            public void onActivityCreated(@NonNull Activity activity, @Nullable Bundle savedInstanceState) {}
+
+            @Override
+            public void onActivityResumed(@NonNull Activity activity) {}
+
+            @Override
+            public void onActivityPaused(@NonNull Activity activity) {}
+
+            @Override
+            public void onActivitySaveInstanceState(@NonNull Activity activity, @NonNull Bundle outState) {}
+
+            @Override
+            public void onActivityDestroyed(@NonNull Activity activity) {}
+        });
+    }
+
+    // Caches are shrunk in priority order: images first, the live directory last
+    @Override
+    public void onTrimMemory(int level) {
+        super.onTrimMemory(level);
+        CacheRegistry.getInstance().onTrimMemory(level);
+    }
+
+    @Override
+    public void onLowMemory() {
+        super.onLowMemory();
+        CacheRegistry.getInstance().onLowMemory();
+    }
+}
@@ -0,0 +1,225 @@
+package com.example.employee_data_app;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+public class EmployeeDirectory {
+
+    public enum SortOrder {
+        NAME(User.NAME_KEY),
+        EMAIL(User.EMAIL_KEY),
+        REGISTERED("registeredAt");
+
+        // Firestore field used for the server-side orderBy
+        final String field;
+
+        SortOrder(String field) {
+            this.field = field;
+        }
+    }
+
+    final ArrayList<User> users = new ArrayList<>();
+    final DirectoryFilter filter = new DirectoryFilter();
+    private final Map<String, User> byId = new HashMap<>();
+    private SortOrder order = SortOrder.NAME;
+    private Comparator<User> comparator = comparatorFor(SortOrder.NAME);
+
+    public SortOrder getOrder() {
+        return order;
+    }
+
+    // Rows come from several department listeners, so a new order re-sorts them in place
+    public void setOrder(@NonNull SortOrder order) {
+        this.order = order;
+        this.comparator = comparatorFor(order);
+        Collections.sort(users, comparator);
+    }
+
+    public void clear() {
+        users.clear();
+        byId.clear();
+        filter.clear();
+    }
+
+    public int size() {
+        return users.size();
+    }
+
+    public User get(int position) {
+        return users.get(position);
+    }
+
+    @Nullable
+    public User getById(String uid) {
+        return byId.get(uid);
+    }
+
+    // Insert at the sorted position and return it
+    public int insert(@NonNull User user) {
+        int index = Collections.binarySearch(users, user, comparator);
+        if (index < 0) {
+            index = -index - 1;
+        }
+        users.add(index, user);
+        if (user.uid != null) {
+            byId.put(user.uid, user);
+        }
+        filter.add(user);
+        return index;
+    }
+
+    // Remove by uid and return the old position, or -1 if it was not listed
+    public int remove(String uid) {
+        User existing = byId.remove(uid);
+        if (existing == null) {
+            return -1;
+        }
+        filter.remove(uid);
+        int index = indexOf(existing);
+        if (index >= 0) {
+            users.remove(index);
+        }
+        return index;
+    }
+
+    // Drop every row of a collapsed department and return them
+    public List<User> removeDepartment(String department) {
+        List<User> removed = new ArrayList<>();
+        Iterator<User> it = users.iterator();
+        while (it.hasNext()) {
+            User user = it.next();
+            if (department.equals(user.department)) {
+                it.remove();
+                byId.remove(user.uid);
+                filter.remove(user.uid);
+                removed.add(user);
+            }
+        }
+        return removed;
+    }
+
+    // Rough heap cost of the listed rows: UTF-16 strings plus object, list and map overhead
+    public long estimatedBytes() {
+        long bytes = 0;
+        for (User user : users) {
+            bytes += estimatedBytes(user);
+        }
+        return bytes;
+    }
+
+    public Map<String, Long> estimatedBytesByDepartment() {
+        Map<String, Long> bytes = new HashMap<>();
+        for (User user : users) {
+            String department = user.department != null ? user.department : "";
+            Long sum = bytes.get(department);
+            bytes.put(department, (sum != null ? sum : 0) + estimatedBytes(user));
+        }
+        return bytes;
+    }
+
+    private static long estimatedBytes(User user) {
+        return 160 + stringBytes(user.uid) + stringBytes(user.fName) + stringBytes(user.email)
+                + stringBytes(user.phone) + stringBytes(user.department) + stringBytes(user.photoGeneration);
+    }
+
+    private static long stringBytes(@Nullable String s) {
+        return s != null ? 40 + 2L * s.length() : 0;
+    }
+
+    // Filter slot of every row in sorted order, handed to the filter engine
+    int[] slotOrder() {
+        int[] slots = new int[users.size()];
+        for (int i = 0; i < slots.length; i++) {
+            slots[i] = filter.slotOf(users.get(i));
+        }
+        return slots;
+    }
+
+    public int indexOf(@NonNull User user) {
+        int index = Collections.binarySearch(users, user, comparator);
+        if (index >= 0 && users.get(index) == user) {
+            return index;
+        }
+        // Fall back to a scan if the object was mutated after insertion
+        return users.indexOf(user);
+    }
+
+    // Section letter for alphabetical orders, null when the order has no sections
+    @Nullable
+    public String sectionOf(int position) {
+        if (order == SortOrder.REGISTERED) {
+            return null;
+        }
+        return sectionFor(sortKey(users.get(position)));
+    }
+
+    // First row at or after the given letter, found by binary search
+    public int positionForSection(char letter) {
+        if (order == SortOrder.REGISTERED || !Character.isLetter(letter)) {
+            return 0;
+        }
+        String target = User.sortKey(String.valueOf(letter));
+        int low = 0;
+        int high = users.size();
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (sortKey(users.get(mid)).compareTo(target) < 0) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return Math.min(low, Math.max(users.size() - 1, 0));
+    }
+
+    static String sectionFor(String key) {
+        if (key.isEmpty() || !Character.isLetter(key.charAt(0))) {
+            return "#";
+        }
+        return String.valueOf(Character.toUpperCase(key.charAt(0)));
+    }
+
+    private String sortKey(User user) {
+        return order == SortOrder.EMAIL ? user.emailKey() : user.nameKey();
+    }
+
+    // Ties break on uid so every user has exactly one sorted position.
+    // Names and emails compare by their stored lower-case keys, the same order the server uses.
+    static Comparator<User> comparatorFor(SortOrder order) {
+        switch (order) {
+            case EMAIL:
+                return (a, b) -> {
+                    int c = a.emailKey().compareTo(b.emailKey());
+                    return c != 0 ? c : nonNull(a.uid).compareTo(nonNull(b.uid));
+                };
+            case REGISTERED:
+                return (a, b) -> {
+                    int c;
+                    if (a.registeredAt == null || b.registeredAt == null) {
+                        c = a.registeredAt == null ? (b.registeredAt == null ? 0 : -1) : 1;
+                    } else {
+                        c = a.registeredAt.compareTo(b.registeredAt);
+                    }
+                    return c != 0 ? c : nonNull(a.uid).compareTo(nonNull(b.uid));
+                };
+            case NAME:
+            default:
+                return (a, b) -> {
+                    int c = a.nameKey().compareTo(b.nameKey());
+                    return c != 0 ? c : nonNull(a.uid).compareTo(nonNull(b.uid));
+                };
+        }
+    }
+
+    private static String nonNull(@Nullable String s) {
+        return s != null ? s : "";
+    }
+}
@@ -0,0 +1,18 @@
+package com.example.employee_data_app;
+
+import android.content.Context;
+
+import androidx.annotation.NonNull;
+
+import com.google.firebase.FirebaseApp;
+
+// Replaces FirebaseInitProvider so the default app is created in order with everything else
+public class FirebaseAppInitializer extends TimedInitializer<FirebaseApp> {
+
+    @NonNull
+    @Override
+    protected FirebaseApp createTimed(@NonNull Context context) {
+        FirebaseApp app = FirebaseApp.initializeApp(context);
+        return app != null ? app : FirebaseApp.getInstance();
+    }
+}
@@ -0,0 +1,29 @@
+package com.example.employee_data_app;
+
+import android.content.Context;
+
+import androidx.annotation.NonNull;
+import androidx.startup.Initializer;
+
+import com.google.firebase.firestore.FirebaseFirestore;
+
+import java.util.Collections;
+import java.util.List;
+
+// Firestore settings can only be changed before the instance is first used
+public class FirestoreInitializer extends TimedInitializer<FirebaseFirestore> {
+
+    @NonNull
+    @Override
+    protected FirebaseFirestore createTimed(@NonNull Context context) {
+        FirebaseFirestore db = FirebaseFirestore.getInstance();
+        FirestorePolicy.DEFAULT.apply(db);
+        return db;
+    }
+
+    @NonNull
+    @Override
+    public List<Class<? extends Initializer<?>>> dependencies() {
+        return Collections.singletonList(FirebaseAppInitializer.class);
+    }
+}
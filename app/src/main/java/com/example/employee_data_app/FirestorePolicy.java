@@ -0,0 +1,97 @@
+package com.example.employee_data_app;
+
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+
+import com.google.android.gms.tasks.OnFailureListener;
+import com.google.android.gms.tasks.OnSuccessListener;
+import com.google.firebase.firestore.DocumentReference;
+import com.google.firebase.firestore.DocumentSnapshot;
+import com.google.firebase.firestore.FirebaseFirestore;
+import com.google.firebase.firestore.FirebaseFirestoreSettings;
+import com.google.firebase.firestore.PersistentCacheIndexManager;
+import com.google.firebase.firestore.PersistentCacheSettings;
+import com.google.firebase.firestore.Source;
+
+public class FirestorePolicy {
+
+    private static final String TAG = "FirestorePolicy";
+
+    // Large enough to hold a full directory plus profile history without LRU churn
+    static final long DEFAULT_CACHE_SIZE_BYTES = 200L * 1024 * 1024;
+
+    public static final FirestorePolicy DEFAULT = new Builder().build();
+
+    final long cacheSizeBytes;
+    final boolean indexAutoCreation;
+
+    private FirestorePolicy(Builder builder) {
+        this.cacheSizeBytes = builder.cacheSizeBytes;
+        this.indexAutoCreation = builder.indexAutoCreation;
+    }
+
+    public static class Builder {
+        private long cacheSizeBytes = DEFAULT_CACHE_SIZE_BYTES;
+        private boolean indexAutoCreation = true;
+
+        public Builder setCacheSizeBytes(long cacheSizeBytes) {
+            this.cacheSizeBytes = cacheSizeBytes;
+            return this;
+        }
+
+        public Builder setIndexAutoCreation(boolean indexAutoCreation) {
+            this.indexAutoCreation = indexAutoCreation;
+            return this;
+        }
+
+        public FirestorePolicy build() {
+            return new FirestorePolicy(this);
+        }
+    }
+
+    // Must run before the first read or write on this instance
+    public void apply(@NonNull FirebaseFirestore db) {
+        FirebaseFirestoreSettings settings = new FirebaseFirestoreSettings.Builder(db.getFirestoreSettings())
+                .setLocalCacheSettings(PersistentCacheSettings.newBuilder()
+                        .setSizeBytes(cacheSizeBytes)
+                        .build())
+                .build();
+        db.setFirestoreSettings(settings);
+
+        // Let the SDK build client-side indexes for the users queries we run against the cache
+        PersistentCacheIndexManager indexManager = db.getPersistentCacheIndexManager();
+        if (indexManager != null) {
+            if (indexAutoCreation) {
+                indexManager.enableIndexAutoCreation();
+            } else {
+                indexManager.disableIndexAutoCreation();
+            }
+        }
+    }
+
+    // Deliver the cached document first, then the server copy once it arrives
+    public static void getCacheThenServer(@NonNull DocumentReference ref,
+                                          @NonNull OnSuccessListener<DocumentSnapshot> listener,
+                                          @NonNull OnFailureListener failureListener) {
+        // [0] cache delivered, [1] server delivered; a late cache hit never overrides the server
+        boolean[] delivered = {false, false};
+        ref.get(Source.CACHE).addOnSuccessListener(snapshot -> {
+            if (snapshot.exists() && !delivered[1]) {
+                delivered[0] = true;
+                listener.onSuccess(snapshot);
+            }
+        });
+        ref.get(Source.SERVER).addOnSuccessListener(snapshot -> {
+            delivered[1] = true;
+            listener.onSuccess(snapshot);
+        }).addOnFailureListener(e -> {
+            // Offline with a cache hit is not an error for the caller
+            if (delivered[0]) {
+                Log.d(TAG, "Server reconciliation failed for " + ref.getPath(), e);
+            } else {
+                failureListener.onFailure(e);
+            }
+        });
+    }
+}
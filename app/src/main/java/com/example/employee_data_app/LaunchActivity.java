@@ -0,0 +1,85 @@
+package com.example.employee_data_app;
+
+import androidx.appcompat.app.AppCompatActivity;
+
+import android.content.Context;
+import android.content.Intent;
+import android.os.Bundle;
+import android.util.Log;
+
+import com.google.firebase.auth.FirebaseAuth;
+import com.google.firebase.auth.FirebaseAuthInvalidUserException;
+import com.google.firebase.auth.FirebaseUser;
+import com.google.firebase.firestore.DocumentReference;
+import com.google.firebase.firestore.FirebaseFirestore;
+
+public class LaunchActivity extends AppCompatActivity {
+
+    private static final String TAG = "LaunchActivity";
+
+    @Override
+    protected void onCreate(Bundle savedInstanceState) {
+        super.onCreate(savedInstanceState);
+
+        // Persisted auth state is available synchronously
+        FirebaseUser user = FirebaseAuth.getInstance().getCurrentUser();
+        if (user == null || !user.isEmailVerified()) {
+            route(Login.class);
+            return;
+        }
+
+        String uid = user.getUid();
+        Context appContext = getApplicationContext();
+
+        // Refresh the auth session in parallel with the role lookup. A disabled or deleted
+        // account is signed out and sent to Login, even if routing already went ahead.
+        user.reload().addOnFailureListener(e -> {
+            if (e instanceof FirebaseAuthInvalidUserException) {
+                Log.d(TAG, "Account no longer valid, signing out " + uid);
+                SessionCache.signOut(appContext);
+                Intent intent = new Intent(appContext, Login.class);
+                intent.setFlags(Intent.FLAG_ACTIVITY_CLEAR_TASK | Intent.FLAG_ACTIVITY_NEW_TASK);
+                appContext.startActivity(intent);
+            }
+        });
+        DocumentReference profile = FirebaseFirestore.getInstance().collection("users").document(uid);
+
+        String cachedRole = SessionCache.role(this, uid);
+        if (cachedRole != null) {
+            route(SessionCache.ROLE_ADMIN.equals(cachedRole) ? AdminActivity.class : MainActivity.class);
+            // Warm the Firestore cache for the destination and keep the cached role current
+            FirestorePolicy.getCacheThenServer(profile,
+                    documentSnapshot -> SessionCache.saveRole(appContext, uid, SessionCache.roleOf(documentSnapshot)),
+                    e -> Log.d(TAG, "Background role refresh failed", e));
+            return;
+        }
+
+        setContentView(R.layout.activity_launch);
+        boolean[] routed = {false};
+        FirestorePolicy.getCacheThenServer(profile, documentSnapshot -> {
+            String role = SessionCache.roleOf(documentSnapshot);
+            SessionCache.saveRole(appContext, uid, role);
+            if (routed[0] || isFinishing()) {
+                return;
+            }
+            routed[0] = true;
+            if (role == null) {
+                Log.d(TAG, "No role found for " + uid + ", falling back to Login");
+                route(Login.class);
+            } else {
+                route(SessionCache.ROLE_ADMIN.equals(role) ? AdminActivity.class : MainActivity.class);
+            }
+        }, e -> {
+            if (!routed[0] && !isFinishing()) {
+                routed[0] = true;
+                route(Login.class);
+            }
+        });
+    }
+
+    private void route(Class<?> destination) {
+        startActivity(new Intent(getApplicationContext(), destination));
+        overridePendingTransition(0, 0);
+        finish();
+    }
+}
@@ -10,7 +10,6 @@ import android.os.Bundle;
 import android.text.method.HideReturnsTransformationMethod;
 import android.text.method.PasswordTransformationMethod;
 import android.util.Log;
-import android.util.Patterns;
 import android.view.View;
 import android.widget.Button;
 import android.widget.EditText;
@@ -108,13 +107,20 @@ public class Login extends AppCompatActivity {
 
     // Authenticate User
     private void authenticateUser(String email, String password) {
-        fAuth.signInWithEmailAndPassword(email, password)
+        // A second tap while the first sign-in is running is ignored
+        RequestGate gate = RequestGate.getInstance();
+        if (gate.isInFlight(RequestGate.SIGN_IN, email)) {
+            return;
+        }
+        gate.run(RequestGate.SIGN_IN, email, () -> fAuth.signInWithEmailAndPassword(email, password))
                 .addOnCompleteListener(task -> {
                     if (task.isSuccessful()) {
                         FirebaseUser user = fAuth.getCurrentUser();
                         if (user != null && user.isEmailVerified()) {
                             Toast.makeText(Login.this, "Logged in Successfully", Toast.LENGTH_SHORT).show();
-                            checkUserAccessLevel(user.getUid());
+                            // Finish an interrupted registration before looking up the role it writes
+                            RegistrationPipeline.getInstance(this).resumePending()
+                                    .addOnCompleteListener(resumed -> checkUserAccessLevel(user.getUid()));
                             resetFields();
                         } else {
                             showVerificationDialog();
@@ -189,7 +195,7 @@ public class Login extends AppCompatActivity {
 
     // Validate Email Format
     private boolean isValidEmail(String email) {
-        return Patterns.EMAIL_ADDRESS.matcher(email).matches();
+        return UniquenessIndex.isValidEmail(email);
     }
 
     // Show Error Message
@@ -207,17 +213,28 @@ public class Login extends AppCompatActivity {
     // Check User Access Level
     private void checkUserAccessLevel(String uid) {
         DocumentReference df = fStore.collection("users").document(uid);
-        df.get().addOnSuccessListener(documentSnapshot -> {
+        // Route on the first answer (usually the cache); the server copy only refreshes the stored role
+        boolean[] routed = {false};
+        FirestorePolicy.getCacheThenServer(df, documentSnapshot -> {
             Log.d("TAG", "onSuccess:" + documentSnapshot.getData());
+            SessionCache.saveRole(getApplicationContext(), uid, SessionCache.roleOf(documentSnapshot));
+            if (routed[0]) {
+                return;
+            }
 
             if (documentSnapshot.getString("isAdmin") != null) {
+                routed[0] = true;
                 startActivity(new Intent(getApplicationContext(), AdminActivity.class));
                 finish();
             }
 
             if (documentSnapshot.getString("isUser") != null) {
+                routed[0] = true;
                 startActivity(new Intent(getApplicationContext(), MainActivity.class));
             }
+        }, e -> {
+            Toast.makeText(Login.this, "Error !" + e.getMessage(), Toast.LENGTH_SHORT).show();
+            progressBar.setVisibility(View.GONE);
         });
     }
 }
@@ -10,6 +10,7 @@ import androidx.appcompat.app.AppCompatActivity;
 import android.annotation.SuppressLint;
 import android.app.Activity;
 import android.content.Intent;
+import android.graphics.Bitmap;
 import android.net.Uri;
 import android.os.Bundle;
 import android.provider.MediaStore;
@@ -25,6 +26,7 @@ import android.widget.Toast;
 
 import com.google.android.gms.tasks.OnFailureListener;
 import com.google.android.gms.tasks.OnSuccessListener;
+import com.google.firebase.Timestamp;
 import com.google.firebase.auth.FirebaseAuth;
 import com.google.firebase.auth.FirebaseUser;
 import com.google.firebase.firestore.DocumentReference;
@@ -32,9 +34,9 @@ import com.google.firebase.firestore.DocumentSnapshot;
 import com.google.firebase.firestore.EventListener;
 import com.google.firebase.firestore.FirebaseFirestore;
 import com.google.firebase.firestore.FirebaseFirestoreException;
-import com.google.firebase.storage.FirebaseStorage;
-import com.google.firebase.storage.StorageReference;
-import com.google.firebase.storage.UploadTask;
+
+import java.util.Date;
+import java.util.Map;
 
 public class MainActivity extends AppCompatActivity {
     TextView fullName, email, phone, verifyMsg, vvMsg;
@@ -44,7 +46,13 @@ public class MainActivity extends AppCompatActivity {
     Button resendCode,changeProfileImage;
     FirebaseUser user;
     ImageView profileImage;
-    StorageReference storageReference;
+    ProfileImageUploader imageUploader;
+    // Photo generation last handed to the uploader for display
+    String shownGeneration;
+    boolean pictureRequested;
+    boolean indexRequested;
+
+    private static final int PICK_IMAGE_REQUEST = 1000;
 
 
 
@@ -61,7 +69,6 @@ public class MainActivity extends AppCompatActivity {
 
         fAuth = FirebaseAuth.getInstance();
         fStore = FirebaseFirestore.getInstance();
-        storageReference = FirebaseStorage.getInstance().getReference();
 
         userId = fAuth.getCurrentUser().getUid();
 
@@ -79,7 +86,12 @@ public class MainActivity extends AppCompatActivity {
             resendCode.setOnClickListener(new View.OnClickListener() {
                 @Override
                 public void onClick(View v) {
-                    user.sendEmailVerification().addOnSuccessListener(new OnSuccessListener<Void>() {
+                    RequestGate gate = RequestGate.getInstance();
+                    if (gate.isInFlight(RequestGate.SEND_VERIFICATION, user.getUid())) {
+                        return;
+                    }
+                    gate.run(RequestGate.SEND_VERIFICATION, user.getUid(), user::sendEmailVerification)
+                            .addOnSuccessListener(new OnSuccessListener<Void>() {
                         @Override
                         public void onSuccess(Void unused) {
                             Toast.makeText(MainActivity.this, "Verification Email Has been Sent. ", Toast.LENGTH_SHORT);
@@ -98,6 +110,8 @@ public class MainActivity extends AppCompatActivity {
         }
 
 
+        imageUploader = new ProfileImageUploader(this, userId);
+
         DocumentReference documentReference = fStore.collection("users").document(userId);
         documentReference.addSnapshotListener(this, new EventListener<DocumentSnapshot>() {
             @Override
@@ -112,6 +126,39 @@ public class MainActivity extends AppCompatActivity {
                     phone.setText(documentSnapshot.getString("phone"));
                     fullName.setText(documentSnapshot.getString("fName"));
                     email.setText(documentSnapshot.getString("email"));
+
+                    String generation = documentSnapshot.getString("photoGeneration");
+                    if (!pictureRequested || (generation != null && !generation.equals(shownGeneration))) {
+                        pictureRequested = true;
+                        shownGeneration = generation;
+                        imageUploader.showStored(generation, uploadCallback);
+                    }
+
+                    PresenceTracker.getInstance().setDepartment(documentSnapshot.getString(DepartmentPartitions.FIELD));
+
+                    // Older profiles get the keys the directory orders on, the Unassigned department
+                    // and an explicit null manager; the account's creation time replaces a
+                    // registration date nobody knew. Everything goes out as one write, because each
+                    // write fires this listener again.
+                    Map<String, Object> missing = ProfileBackfill.missingFields(documentSnapshot);
+                    // Mirror verification into the profile so admins can filter on it
+                    if (user.isEmailVerified() && !Boolean.TRUE.equals(documentSnapshot.getBoolean("emailVerified"))) {
+                        missing.put("emailVerified", true);
+                    }
+                    Timestamp registeredAt = documentSnapshot.getTimestamp("registeredAt");
+                    if ((registeredAt == null || User.UNKNOWN_REGISTRATION.equals(registeredAt))
+                            && user.getMetadata() != null) {
+                        missing.put("registeredAt", new Timestamp(new Date(user.getMetadata().getCreationTimestamp())));
+                    }
+                    if (!missing.isEmpty()) {
+                        documentReference.update(missing);
+                    }
+                    // Once per screen: the write above fires this listener before the index has landed
+                    if (!indexRequested && !Boolean.TRUE.equals(documentSnapshot.getBoolean(UniquenessIndex.INDEXED))) {
+                        indexRequested = true;
+                        new UniquenessIndex(fStore).indexExisting(userId, documentSnapshot.getString("email"),
+                                documentSnapshot.getString("phone"));
+                    }
                 } else {
                     // Document does not exist or is null
                     Log.d(TAG, "Current data: null");
@@ -120,6 +167,16 @@ public class MainActivity extends AppCompatActivity {
             }
         });
 
+        // Pick a new profile picture from the gallery
+        imageUploader.resumePending(uploadCallback);
+        profileImage.setOnClickListener(new View.OnClickListener() {
+            @Override
+            public void onClick(View v) {
+                Intent openGalleryIntent = new Intent(Intent.ACTION_PICK, MediaStore.Images.Media.EXTERNAL_CONTENT_URI);
+                startActivityForResult(openGalleryIntent, PICK_IMAGE_REQUEST);
+            }
+        });
+
         changeProfileImage.setOnClickListener(new View.OnClickListener() {
             @Override
             public void onClick(View view) {
@@ -132,24 +189,18 @@ public class MainActivity extends AppCompatActivity {
         });
     }
 
-    //under production
-
-        /*changeProfileImage.setOnClickListener(new View.OnClickListener() {
-            @Override
-            public void onClick(View v) {
-                Intent openGalleryIntent = new Intent(Intent.ACTION_PICK, MediaStore.Images.Media.EXTERNAL_CONTENT_URI);
-                startActivityForResult(openGalleryIntent, 1000);
-            }
-        });
-
+    @Override
+    public void onUserInteraction() {
+        super.onUserInteraction();
+        PresenceTracker.getInstance().onActive();
     }
+
     @Override
     protected void onActivityResult(int requestCode, int resultCode, @Nullable Intent data) {
         super.onActivityResult(requestCode, resultCode, data);
-        if (requestCode == 1000 && resultCode == Activity.RESULT_OK && data != null) {
+        if (requestCode == PICK_IMAGE_REQUEST && resultCode == Activity.RESULT_OK && data != null) {
             Uri imageUri = data.getData();
             if (imageUri != null) {
-                profileImage.setImageURI(imageUri);
                 uploadImageToFirebase(imageUri);
             } else {
                 Toast.makeText(MainActivity.this, "Failed to retrieve image URI", Toast.LENGTH_SHORT).show();
@@ -158,15 +209,25 @@ public class MainActivity extends AppCompatActivity {
     }
 
     private void uploadImageToFirebase(Uri imageUri) {
-        if (imageUri != null) {
-            StorageReference fileRef = storageReference.child("profile.jpg");
-            fileRef.putFile(imageUri)
-                    .addOnSuccessListener(taskSnapshot -> Toast.makeText(MainActivity.this, "Image Uploaded.", Toast.LENGTH_SHORT).show())
-                    .addOnFailureListener(e -> Toast.makeText(MainActivity.this, "Failed to upload image.", Toast.LENGTH_SHORT).show());
-        } else {
-            Toast.makeText(MainActivity.this, "Invalid image URI", Toast.LENGTH_SHORT).show();
+        imageUploader.upload(imageUri, uploadCallback);
+    }
+
+    private final ProfileImageUploader.Callback uploadCallback = new ProfileImageUploader.Callback() {
+        @Override
+        public void onPrepared(Bitmap profile) {
+            profileImage.setImageBitmap(profile);
+        }
+
+        @Override
+        public void onUploaded() {
+            Toast.makeText(MainActivity.this, "Image Uploaded.", Toast.LENGTH_SHORT).show();
+        }
+
+        @Override
+        public void onFailed(Exception e) {
+            Toast.makeText(MainActivity.this, "Failed to upload image.", Toast.LENGTH_SHORT).show();
         }
-    }*/
+    };
 
     @Override
     public boolean onCreateOptionsMenu(Menu menu) {
@@ -182,7 +243,7 @@ public class MainActivity extends AppCompatActivity {
             finish();
             overridePendingTransition(0,0);
         } else if (id ==R.id.menu_logout) {
-            FirebaseAuth.getInstance().signOut();
+            SessionCache.signOut(this);
             Toast.makeText(this, "Logged Out", Toast.LENGTH_SHORT).show();
             Intent intent = new Intent(MainActivity.this, Login.class);
             intent.setFlags(Intent.FLAG_ACTIVITY_CLEAR_TOP | Intent.FLAG_ACTIVITY_CLEAR_TASK
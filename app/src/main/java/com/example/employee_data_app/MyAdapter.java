@@ -1,52 +1,281 @@
 package com.example.employee_data_app;
 
 import android.content.Context;
+import android.content.Intent;
 import android.view.LayoutInflater;
 import android.view.View;
 import android.view.ViewGroup;
+import android.widget.ImageView;
 import android.widget.TextView;
 
 import androidx.annotation.NonNull;
+import androidx.asynclayoutinflater.view.AsyncLayoutInflater;
+import androidx.core.widget.TextViewCompat;
 import androidx.recyclerview.widget.RecyclerView;
 
+import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
 
 public class MyAdapter extends RecyclerView.Adapter<MyAdapter.MyViewHolder> {
 
     Context context;
+    EmployeeDirectory directory;
     ArrayList<User> userArrayList;
+    RowTextPrecomputer rowText;
+    PresenceBoard presenceBoard;
 
-    public MyAdapter(Context context, ArrayList<User> userArrayList) {
+    // Partial rebind that only refreshes the presence line
+    static final Object PAYLOAD_PRESENCE = new Object();
+
+    // Directory positions matching the active filter, or null when unfiltered
+    private int[] visible;
+    private List<List<String>> activeFilter;
+    private int filterGeneration;
+    // A full evaluation is running; rows changed meanwhile make its result stale
+    private boolean refilterPending, changedWhilePending;
+
+    // Rows inflated off the main thread before the first frame needs them
+    private final ArrayDeque<View> prewarmedViews = new ArrayDeque<>();
+
+    public MyAdapter(Context context, EmployeeDirectory directory) {
         this.context = context;
-        this.userArrayList = userArrayList;
+        this.directory = directory;
+        this.userArrayList = directory.users;
+        this.rowText = new RowTextPrecomputer(CacheRegistry.budget(context, 32));
     }
 
     @NonNull
     @Override
     public MyAdapter.MyViewHolder onCreateViewHolder(@NonNull ViewGroup parent, int viewType) {
-        View v = LayoutInflater.from(context).inflate(R.layout.data, parent, false);
+        View v = prewarmedViews.poll();
+        if (v == null) {
+            v = LayoutInflater.from(context).inflate(R.layout.data, parent, false);
+        }
+
+        MyViewHolder holder = new MyViewHolder(v);
+        rowText.setParams(holder.nameTextView);
+        // Tapping a row opens that employee's edit history
+        holder.itemView.setOnClickListener(view -> {
+            int position = holder.getAdapterPosition();
+            if (position == RecyclerView.NO_POSITION) {
+                return;
+            }
+            User user = userArrayList.get(directoryPosition(position));
+            Intent intent = new Intent(context, AuditHistoryActivity.class);
+            intent.putExtra(AuditHistoryActivity.EXTRA_UID, user.uid);
+            intent.putExtra(AuditHistoryActivity.EXTRA_NAME, user.fName);
+            context.startActivity(intent);
+        });
+        return holder;
+    }
+
+    // Inflate rows with AsyncLayoutInflater so the first bind only swaps text and images
+    public void prewarm(@NonNull RecyclerView parent, int count) {
+        parent.getRecycledViewPool().setMaxRecycledViews(0, count);
+        AsyncLayoutInflater inflater = new AsyncLayoutInflater(context);
+        for (int i = 0; i < count; i++) {
+            inflater.inflate(R.layout.data, parent, (view, resid, p) -> {
+                rowText.setParams(view.findViewById(R.id.name_char_id));
+                prewarmedViews.add(view);
+            });
+        }
+    }
+
+    // Neighbouring rows are rebound so section headers stay correct.
+    // A filtered view is shifted in place, so it never points at stale directory positions.
+    public void onUserInserted(int position) {
+        changedWhilePending |= refilterPending;
+        int index = position;
+        if (visible != null) {
+            index = lowerBound(visible, position);
+            for (int i = index; i < visible.length; i++) {
+                visible[i]++;
+            }
+            if (!directory.filter.matches(activeFilter, directory.get(position))) {
+                return;
+            }
+            int[] next = new int[visible.length + 1];
+            System.arraycopy(visible, 0, next, 0, index);
+            next[index] = position;
+            System.arraycopy(visible, index, next, index + 1, visible.length - index);
+            visible = next;
+        }
+        notifyItemInserted(index);
+        if (index + 1 < getItemCount()) {
+            notifyItemChanged(index + 1);
+        }
+    }
+
+    public void onUserRemoved(User user, int position) {
+        rowText.remove(user);
+        changedWhilePending |= refilterPending;
+        int index = position;
+        if (visible != null) {
+            index = Arrays.binarySearch(visible, position);
+            int[] next = visible;
+            if (index >= 0) {
+                next = new int[visible.length - 1];
+                System.arraycopy(visible, 0, next, 0, index);
+                System.arraycopy(visible, index + 1, next, index, visible.length - index - 1);
+            }
+            for (int i = index >= 0 ? index : -index - 1; i < next.length; i++) {
+                next[i]--;
+            }
+            visible = next;
+            if (index < 0) {
+                return;
+            }
+        }
+        notifyItemRemoved(index);
+        if (index < getItemCount()) {
+            notifyItemChanged(index);
+        }
+    }
+
+    // Bulk changes move every position, so a filtered view is emptied until it is evaluated again
+    public void onDirectoryReloaded() {
+        if (activeFilter != null) {
+            visible = new int[0];
+            notifyDataSetChanged();
+            refilter();
+        } else {
+            notifyDataSetChanged();
+        }
+    }
+
+    // Show only rows matching the filter clauses; null shows the whole directory
+    public void setFilter(List<List<String>> clauses) {
+        activeFilter = clauses == null || clauses.isEmpty() ? null : clauses;
+        if (activeFilter == null) {
+            filterGeneration++;
+            refilterPending = false;
+            visible = null;
+            notifyDataSetChanged();
+            return;
+        }
+        refilter();
+    }
+
+    private void refilter() {
+        int generation = ++filterGeneration;
+        refilterPending = true;
+        changedWhilePending = false;
+        directory.filter.evaluate(activeFilter, directory.slotOrder(), positions -> {
+            // Drop results that a newer evaluation has already superseded
+            if (generation != filterGeneration) {
+                return;
+            }
+            refilterPending = false;
+            if (changedWhilePending) {
+                refilter();
+                return;
+            }
+            visible = positions;
+            notifyDataSetChanged();
+        });
+    }
 
-        return new MyViewHolder(v);
+    private static int lowerBound(int[] positions, int position) {
+        int index = Arrays.binarySearch(positions, position);
+        return index >= 0 ? index : -index - 1;
+    }
+
+    // Map between adapter rows and directory positions
+    int directoryPosition(int position) {
+        return visible != null ? visible[position] : position;
+    }
+
+    int adapterPosition(int directoryPosition) {
+        if (visible == null) {
+            return directoryPosition;
+        }
+        int index = Arrays.binarySearch(visible, directoryPosition);
+        int position = index >= 0 ? index : -index - 1;
+        return Math.min(position, Math.max(visible.length - 1, 0));
+    }
+
+    // Precompute text layout for rows as they are added to the list
+    public void precomputeRows(@NonNull List<User> users) {
+        rowText.submit(users);
+    }
+
+    @Override
+    public void onBindViewHolder(@NonNull MyAdapter.MyViewHolder holder, int position, @NonNull List<Object> payloads) {
+        if (payloads.contains(PAYLOAD_PRESENCE) && payloads.size() == 1) {
+            bindPresence(holder, userArrayList.get(directoryPosition(position)));
+            return;
+        }
+        super.onBindViewHolder(holder, position, payloads);
+    }
+
+    private void bindPresence(MyViewHolder holder, User user) {
+        holder.presenceTextView.setText(presenceBoard != null ? presenceBoard.describe(user.uid) : "");
+    }
+
+    // Users currently bound between two adapter positions, for presence subscriptions
+    List<User> usersBetween(int first, int last) {
+        List<User> users = new ArrayList<>();
+        for (int i = Math.max(first, 0); i <= last && i < getItemCount(); i++) {
+            users.add(userArrayList.get(directoryPosition(i)));
+        }
+        return users;
     }
 
     @Override
     public void onBindViewHolder(@NonNull MyAdapter.MyViewHolder holder, int position) {
 
-        User user = userArrayList.get(position);
+        int row = directoryPosition(position);
+        User user = userArrayList.get(row);
+
+        RowTextPrecomputer.RowText text = rowText.get(user);
+        if (text != null) {
+            TextViewCompat.setPrecomputedText(holder.nameTextView, text.name);
+            TextViewCompat.setPrecomputedText(holder.emailTextView, text.email);
+            TextViewCompat.setPrecomputedText(holder.phoneTextView, text.phone);
+        } else {
+            holder.nameTextView.setText(user.fName);
+            holder.emailTextView.setText(user.email);
+            holder.phoneTextView.setText(user.phone);
+        }
+        AvatarLoader.getInstance(context).load(user, holder.avatarImageView);
+        bindPresence(holder, user);
+
+        // Alphabetical header on the first row of each section
+        String section = directory.sectionOf(row);
+        if (section != null && (position == 0 || !section.equals(directory.sectionOf(directoryPosition(position - 1))))) {
+            holder.sectionTextView.setText(section);
+            holder.sectionTextView.setVisibility(View.VISIBLE);
+        } else {
+            holder.sectionTextView.setVisibility(View.GONE);
+        }
+
+    }
 
-        holder.nameTextView.setText(user.fName);
-        holder.emailTextView.setText(user.email);
-        holder.phoneTextView.setText(user.phone);
+    @Override
+    public void onViewRecycled(@NonNull MyAdapter.MyViewHolder holder) {
+        super.onViewRecycled(holder);
+        AvatarLoader.getInstance(context).cancel(holder.avatarImageView);
+    }
 
+    // Prefetch avatars for rows just past the visible window
+    public void prefetchAvatars(int from, int count) {
+        AvatarLoader loader = AvatarLoader.getInstance(context);
+        int end = Math.min(from + count, getItemCount());
+        for (int i = Math.max(from, 0); i < end; i++) {
+            loader.prefetch(userArrayList.get(directoryPosition(i)));
+        }
     }
 
     @Override
     public int getItemCount() {
-        return userArrayList.size();
+        return visible != null ? visible.length : userArrayList.size();
     }
 
     public static class MyViewHolder extends RecyclerView.ViewHolder {
-        TextView nameTextView, emailTextView, phoneTextView;
+        TextView nameTextView, emailTextView, phoneTextView, sectionTextView, presenceTextView;
+        ImageView avatarImageView;
 
         public MyViewHolder(@NonNull View itemView) {
             super(itemView);
@@ -55,6 +284,9 @@ public class MyAdapter extends RecyclerView.Adapter<MyAdapter.MyViewHolder> {
             nameTextView = itemView.findViewById(R.id.name_char_id);
             emailTextView = itemView.findViewById(R.id.email_char_id);
             phoneTextView = itemView.findViewById(R.id.phone_char_id);
+            avatarImageView = itemView.findViewById(R.id.img1_id);
+            sectionTextView = itemView.findViewById(R.id.section_header_id);
+            presenceTextView = itemView.findViewById(R.id.presence_char_id);
         }
     }
 }
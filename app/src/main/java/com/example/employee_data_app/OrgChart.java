@@ -0,0 +1,136 @@
+package com.example.employee_data_app;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import com.google.android.gms.tasks.Task;
+import com.google.firebase.firestore.CollectionReference;
+import com.google.firebase.firestore.DocumentSnapshot;
+import com.google.firebase.firestore.FieldValue;
+import com.google.firebase.firestore.FirebaseFirestore;
+import com.google.firebase.firestore.FirebaseFirestoreException;
+import com.google.firebase.firestore.Query;
+import com.google.firebase.firestore.QuerySnapshot;
+import com.google.firebase.firestore.Transaction;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+public class OrgChart {
+
+    // Direct manager's uid, null at the top of the org
+    static final String MANAGER = "managerId";
+    // Everyone below this person, kept current on every move
+    static final String SUBTREE = "subtreeCount";
+
+    static final int PAGE_SIZE = 25;
+    // Guards the ancestor walk against corrupt data
+    private static final int MAX_DEPTH = 64;
+
+    // Ancestors whose headcount changed, nearest first
+    static class Move {
+        final List<String> removedFrom;
+        final List<String> addedTo;
+        final long delta;
+
+        Move(List<String> removedFrom, List<String> addedTo, long delta) {
+            this.removedFrom = removedFrom;
+            this.addedTo = addedTo;
+            this.delta = delta;
+        }
+    }
+
+    private final FirebaseFirestore fStore;
+    private final CollectionReference users;
+
+    public OrgChart(FirebaseFirestore fStore) {
+        this.fStore = fStore;
+        this.users = fStore.collection("users");
+    }
+
+    static long headcount(DocumentSnapshot employee) {
+        Long count = employee.getLong(SUBTREE);
+        return count != null ? count : 0;
+    }
+
+    // One page of direct reports, employees only; needs the (isUser, managerId, fNameLower) composite index.
+    // Profiles without a managerId are given an explicit null by the profile migration, so the root query finds them.
+    public Task<QuerySnapshot> reports(@Nullable String managerId, @Nullable DocumentSnapshot after) {
+        Query query = users.whereEqualTo("isUser", "1")
+                .whereEqualTo(MANAGER, managerId)
+                .orderBy(User.NAME_KEY)
+                .limit(PAGE_SIZE);
+        if (after != null) {
+            query = query.startAfter(after);
+        }
+        return query.get();
+    }
+
+    // Reassign uid and shift its subtree's headcount from the old chain to the new one.
+    // Costs one read per ancestor; descendants are never touched.
+    // Only a repeat of the same move shares a Task; a move to another manager runs on its own.
+    public Task<Move> changeManager(@NonNull String uid, @Nullable String newManagerId) {
+        return RequestGate.getInstance().run(RequestGate.PROFILE_WRITE, uid + ":" + newManagerId,
+                () -> fStore.runTransaction((Transaction.Function<Move>) transaction -> {
+                    DocumentSnapshot employee = transaction.get(users.document(uid));
+                    if (!employee.exists()) {
+                        throw new FirebaseFirestoreException("Employee not found", FirebaseFirestoreException.Code.NOT_FOUND);
+                    }
+                    String oldManagerId = employee.getString(MANAGER);
+                    if (oldManagerId == null ? newManagerId == null : oldManagerId.equals(newManagerId)) {
+                        return new Move(Collections.emptyList(), Collections.emptyList(), 0);
+                    }
+                    long delta = headcount(employee) + 1;
+                    List<String> oldChain = chain(transaction, oldManagerId, false);
+                    List<String> newChain = chain(transaction, newManagerId, true);
+                    if (newChain.contains(uid)) {
+                        throw new FirebaseFirestoreException("Cannot report to someone in their own team",
+                                FirebaseFirestoreException.Code.INVALID_ARGUMENT);
+                    }
+
+                    // Ancestors shared by both chains keep their headcount
+                    while (!oldChain.isEmpty() && !newChain.isEmpty()
+                            && oldChain.get(oldChain.size() - 1).equals(newChain.get(newChain.size() - 1))) {
+                        oldChain.remove(oldChain.size() - 1);
+                        newChain.remove(newChain.size() - 1);
+                    }
+
+                    transaction.update(users.document(uid), MANAGER, newManagerId);
+                    for (String ancestor : oldChain) {
+                        transaction.update(users.document(ancestor), SUBTREE, FieldValue.increment(-delta));
+                    }
+                    for (String ancestor : newChain) {
+                        transaction.update(users.document(ancestor), SUBTREE, FieldValue.increment(delta));
+                    }
+                    return new Move(oldChain, newChain, delta);
+                }));
+    }
+
+    // Manager, their manager and so on up to the top, read inside the transaction
+    private List<String> chain(Transaction transaction, @Nullable String managerId, boolean mustExist)
+            throws FirebaseFirestoreException {
+        List<String> chain = new ArrayList<>();
+        String current = managerId;
+        while (current != null && chain.size() < MAX_DEPTH) {
+            DocumentSnapshot manager = transaction.get(users.document(current));
+            if (!manager.exists()) {
+                if (mustExist && chain.isEmpty()) {
+                    throw new FirebaseFirestoreException("Manager not found", FirebaseFirestoreException.Code.NOT_FOUND);
+                }
+                break;
+            }
+            // Admin profiles are not on the chart, so nobody can be placed under one
+            if (mustExist && chain.isEmpty() && manager.getString("isUser") == null) {
+                throw new FirebaseFirestoreException("Manager must be an employee",
+                        FirebaseFirestoreException.Code.INVALID_ARGUMENT);
+            }
+            if (chain.contains(current)) {
+                break;
+            }
+            chain.add(current);
+            current = manager.getString(MANAGER);
+        }
+        return chain;
+    }
+}
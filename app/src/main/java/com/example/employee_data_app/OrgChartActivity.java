@@ -0,0 +1,288 @@
+package com.example.employee_data_app;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.appcompat.app.AlertDialog;
+import androidx.appcompat.app.AppCompatActivity;
+import androidx.recyclerview.widget.LinearLayoutManager;
+import androidx.recyclerview.widget.RecyclerView;
+
+import android.os.Bundle;
+import android.util.Log;
+import android.view.LayoutInflater;
+import android.view.View;
+import android.view.ViewGroup;
+import android.widget.EditText;
+import android.widget.TextView;
+import android.widget.Toast;
+
+import com.google.firebase.firestore.DocumentSnapshot;
+import com.google.firebase.firestore.FirebaseFirestore;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public class OrgChartActivity extends AppCompatActivity {
+
+    private static final String TAG = "OrgChartActivity";
+    private static final int INDENT_DP = 24;
+
+    // One row of the flattened tree; a "load more" row points at the node it pages
+    private static class Node {
+        final String uid;
+        final int depth;
+        String name, email;
+        long headcount;
+        boolean expanded, loading;
+        // Paging state for this node's direct reports
+        DocumentSnapshot cursor;
+        boolean hasMore;
+        final Node moreOf;
+
+        Node(String uid, int depth, @Nullable Node moreOf) {
+            this.uid = uid;
+            this.depth = depth;
+            this.moreOf = moreOf;
+        }
+    }
+
+    RecyclerView recyclerView;
+    FirebaseFirestore fStore;
+    OrgChart orgChart;
+
+    // The top of the org is the invisible root's reports
+    private final Node root = new Node(null, -1, null);
+    private final List<Node> rows = new ArrayList<>();
+    private final TreeAdapter adapter = new TreeAdapter();
+
+    @Override
+    protected void onCreate(Bundle savedInstanceState) {
+        super.onCreate(savedInstanceState);
+        setContentView(R.layout.activity_org_chart);
+        setTitle("Org chart");
+
+        fStore = FirebaseFirestore.getInstance();
+        orgChart = new OrgChart(fStore);
+
+        recyclerView = findViewById(R.id.orgRecyclerView);
+        recyclerView.setLayoutManager(new LinearLayoutManager(this));
+        recyclerView.setAdapter(adapter);
+
+        root.expanded = true;
+        loadPage(root);
+    }
+
+    private void toggle(Node node) {
+        if (node.expanded) {
+            collapse(node);
+        } else if (node.headcount > 0) {
+            node.expanded = true;
+            adapter.notifyItemChanged(rows.indexOf(node));
+            loadPage(node);
+        }
+    }
+
+    // Each expand or "load more" costs exactly one page of reads
+    private void loadPage(Node parent) {
+        if (parent.loading) {
+            return;
+        }
+        parent.loading = true;
+        orgChart.reports(parent.uid, parent.cursor).addOnSuccessListener(this, snapshots -> {
+            parent.loading = false;
+            if (!parent.expanded) {
+                return;
+            }
+            removeMoreRow(parent);
+            int at = endOfSubtree(parent);
+            List<Node> page = new ArrayList<>();
+            for (DocumentSnapshot doc : snapshots.getDocuments()) {
+                Node child = new Node(doc.getId(), parent.depth + 1, null);
+                child.name = doc.getString("fName");
+                child.email = doc.getString("email");
+                child.headcount = OrgChart.headcount(doc);
+                page.add(child);
+            }
+            if (!snapshots.isEmpty()) {
+                parent.cursor = snapshots.getDocuments().get(snapshots.size() - 1);
+            }
+            parent.hasMore = snapshots.size() == OrgChart.PAGE_SIZE;
+            if (parent.hasMore) {
+                page.add(new Node(null, parent.depth + 1, parent));
+            }
+            rows.addAll(at, page);
+            adapter.notifyItemRangeInserted(at, page.size());
+        }).addOnFailureListener(this, e -> {
+            parent.loading = false;
+            Log.e(TAG, "Failed to load reports", e);
+            Toast.makeText(this, "Error !" + e.getMessage(), Toast.LENGTH_SHORT).show();
+        });
+    }
+
+    // Dropping the rows also drops the paging state, so the next expand starts fresh
+    private void collapse(Node node) {
+        int from = rows.indexOf(node) + 1;
+        int to = endOfSubtree(node);
+        rows.subList(from, to).clear();
+        node.expanded = false;
+        node.cursor = null;
+        node.hasMore = false;
+        adapter.notifyItemChanged(from - 1);
+        adapter.notifyItemRangeRemoved(from, to - from);
+    }
+
+    // First row after everything shown under this node
+    private int endOfSubtree(Node node) {
+        int i = node == root ? 0 : rows.indexOf(node) + 1;
+        while (i < rows.size() && rows.get(i).depth > node.depth) {
+            i++;
+        }
+        return i;
+    }
+
+    private void removeMoreRow(Node parent) {
+        for (int i = rows.size() - 1; i >= 0; i--) {
+            if (rows.get(i).moreOf == parent) {
+                rows.remove(i);
+                adapter.notifyItemRemoved(i);
+                return;
+            }
+        }
+    }
+
+    @Nullable
+    private Node find(String uid) {
+        for (Node node : rows) {
+            if (uid.equals(node.uid)) {
+                return node;
+            }
+        }
+        return null;
+    }
+
+    // The new manager is looked up through the email uniqueness index
+    private void showMoveDialog(Node node) {
+        EditText managerEmail = new EditText(this);
+        managerEmail.setHint("Manager's email, blank for top level");
+
+        AlertDialog.Builder moveDialog = new AlertDialog.Builder(this);
+        moveDialog.setTitle("Change manager of " + node.name);
+        moveDialog.setView(managerEmail);
+        moveDialog.setPositiveButton("Move", (dialog, which) -> {
+            String email = managerEmail.getText().toString().trim();
+            if (email.isEmpty()) {
+                move(node, null);
+                return;
+            }
+            fStore.collection(UniquenessIndex.EMAILS).document(UniquenessIndex.normalizeEmail(email)).get()
+                    .addOnSuccessListener(this, owner -> {
+                        String managerId = owner.getString("uid");
+                        if (managerId == null) {
+                            Toast.makeText(this, "No employee with that email", Toast.LENGTH_SHORT).show();
+                        } else {
+                            move(node, managerId);
+                        }
+                    });
+        });
+        moveDialog.setNegativeButton("Cancel", (dialog, which) -> {});
+        moveDialog.create().show();
+    }
+
+    private void move(Node node, @Nullable String managerId) {
+        orgChart.changeManager(node.uid, managerId).addOnSuccessListener(this, move -> {
+            if (move.delta == 0) {
+                return;
+            }
+            // Adjust visible headcounts by the same delta the transaction applied
+            for (String uid : move.removedFrom) {
+                shiftHeadcount(uid, -move.delta);
+            }
+            for (String uid : move.addedTo) {
+                shiftHeadcount(uid, move.delta);
+            }
+            // Drop the node from its old place and reload the new manager's first page
+            Node shown = find(node.uid);
+            if (shown != null) {
+                int from = rows.indexOf(shown);
+                int to = endOfSubtree(shown);
+                rows.subList(from, to).clear();
+                adapter.notifyItemRangeRemoved(from, to - from);
+            }
+            Node newManager = managerId != null ? find(managerId) : root;
+            if (newManager != null && newManager.expanded) {
+                if (newManager == root) {
+                    rows.clear();
+                    root.cursor = null;
+                    adapter.notifyDataSetChanged();
+                    loadPage(root);
+                } else {
+                    collapse(newManager);
+                    toggle(newManager);
+                }
+            }
+            Toast.makeText(this, "Manager updated", Toast.LENGTH_SHORT).show();
+        }).addOnFailureListener(this, e -> Toast.makeText(this, e.getMessage(), Toast.LENGTH_SHORT).show());
+    }
+
+    private void shiftHeadcount(String uid, long delta) {
+        Node node = find(uid);
+        if (node != null) {
+            node.headcount += delta;
+            adapter.notifyItemChanged(rows.indexOf(node));
+        }
+    }
+
+    private class TreeAdapter extends RecyclerView.Adapter<TreeAdapter.RowHolder> {
+
+        @NonNull
+        @Override
+        public RowHolder onCreateViewHolder(@NonNull ViewGroup parent, int viewType) {
+            View v = LayoutInflater.from(parent.getContext())
+                    .inflate(android.R.layout.simple_list_item_2, parent, false);
+            return new RowHolder(v);
+        }
+
+        @Override
+        public void onBindViewHolder(@NonNull RowHolder holder, int position) {
+            Node node = rows.get(position);
+            float density = holder.itemView.getResources().getDisplayMetrics().density;
+            int indent = holder.basePadding + (int) (Math.max(node.depth, 0) * INDENT_DP * density);
+            holder.itemView.setPaddingRelative(indent, holder.itemView.getPaddingTop(),
+                    holder.itemView.getPaddingEnd(), holder.itemView.getPaddingBottom());
+
+            if (node.moreOf != null) {
+                holder.title.setText("Load more…");
+                holder.subtitle.setText("");
+                holder.itemView.setOnClickListener(v -> loadPage(node.moreOf));
+                holder.itemView.setOnLongClickListener(null);
+                return;
+            }
+            String marker = node.headcount == 0 ? "•" : (node.expanded ? "▾" : "▸");
+            holder.title.setText(marker + " " + node.name);
+            holder.subtitle.setText(node.headcount == 0 ? node.email
+                    : node.headcount + (node.headcount == 1 ? " person" : " people") + " · " + node.email);
+            holder.itemView.setOnClickListener(v -> toggle(node));
+            holder.itemView.setOnLongClickListener(v -> {
+                showMoveDialog(node);
+                return true;
+            });
+        }
+
+        @Override
+        public int getItemCount() {
+            return rows.size();
+        }
+
+        class RowHolder extends RecyclerView.ViewHolder {
+            TextView title, subtitle;
+            final int basePadding;
+
+            RowHolder(@NonNull View itemView) {
+                super(itemView);
+                basePadding = itemView.getPaddingStart();
+                title = itemView.findViewById(android.R.id.text1);
+                subtitle = itemView.findViewById(android.R.id.text2);
+            }
+        }
+    }
+}
@@ -0,0 +1,94 @@
+package com.example.employee_data_app;
+
+import android.text.format.DateUtils;
+
+import androidx.annotation.NonNull;
+
+import com.google.firebase.Timestamp;
+import com.google.firebase.firestore.FirebaseFirestore;
+import com.google.firebase.firestore.ListenerRegistration;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+public class PresenceBoard {
+
+    public interface Listener {
+        void onPresenceChanged();
+    }
+
+    private final FirebaseFirestore db;
+    private final Listener listener;
+    // One listener per department document, attached only while a visible row belongs to it
+    private final Map<String, ListenerRegistration> documents = new HashMap<>();
+    private final Map<String, Timestamp> lastActive = new HashMap<>();
+    private final Map<String, String> states = new HashMap<>();
+
+    public PresenceBoard(FirebaseFirestore db, Listener listener) {
+        this.db = db;
+        this.listener = listener;
+    }
+
+    // Attach the departments behind the visible rows and detach the ones that scrolled away
+    public void watch(@NonNull List<User> visibleUsers) {
+        Set<String> needed = new HashSet<>();
+        for (User user : visibleUsers) {
+            if (user.uid != null) {
+                needed.add(PresenceTracker.documentFor(user.department));
+            }
+        }
+        for (String document : new ArrayList<>(documents.keySet())) {
+            if (!needed.contains(document)) {
+                documents.remove(document).remove();
+            }
+        }
+        for (String document : needed) {
+            if (!documents.containsKey(document)) {
+                documents.put(document, db.collection(PresenceTracker.PRESENCE).document(document)
+                        .addSnapshotListener((snapshot, error) -> {
+                            if (error != null || snapshot == null || snapshot.getData() == null) {
+                                return;
+                            }
+                            for (Map.Entry<String, Object> e : snapshot.getData().entrySet()) {
+                                if (e.getValue() instanceof Map) {
+                                    Map<?, ?> entry = (Map<?, ?>) e.getValue();
+                                    Object at = entry.get("lastActive");
+                                    if (at instanceof Timestamp) {
+                                        lastActive.put(e.getKey(), (Timestamp) at);
+                                    }
+                                    Object state = entry.get("state");
+                                    if (state instanceof String) {
+                                        states.put(e.getKey(), (String) state);
+                                    }
+                                }
+                            }
+                            listener.onPresenceChanged();
+                        }));
+            }
+        }
+    }
+
+    public String describe(String uid) {
+        Timestamp at = uid != null ? lastActive.get(uid) : null;
+        if (at == null) {
+            return "";
+        }
+        if (PresenceTracker.STATE_ACTIVE.equals(states.get(uid))
+                && System.currentTimeMillis() - at.toDate().getTime() < 2 * PresenceTracker.HEARTBEAT_INTERVAL_MS) {
+            return "Active now";
+        }
+        return "Active " + DateUtils.getRelativeTimeSpanString(at.toDate().getTime(),
+                System.currentTimeMillis(), DateUtils.MINUTE_IN_MILLIS);
+    }
+
+    public void stop() {
+        for (ListenerRegistration registration : documents.values()) {
+            registration.remove();
+        }
+        documents.clear();
+    }
+}
@@ -0,0 +1,151 @@
+package com.example.employee_data_app;
+
+import android.os.Handler;
+import android.os.Looper;
+import android.os.SystemClock;
+import android.util.Log;
+
+import androidx.annotation.Nullable;
+
+import com.google.android.gms.tasks.Task;
+import com.google.android.gms.tasks.Tasks;
+import com.google.firebase.auth.FirebaseAuth;
+import com.google.firebase.auth.FirebaseUser;
+import com.google.firebase.firestore.FieldValue;
+import com.google.firebase.firestore.FirebaseFirestore;
+import com.google.firebase.firestore.SetOptions;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+public class PresenceTracker {
+
+    private static final String TAG = "PresenceTracker";
+
+    // One aggregate document per department partition: presence/{department} holds
+    // {uid: {state, lastActive}}, so an admin's page of a department needs a single listener.
+    // With one heartbeat per interval, a department of a few hundred people stays well under
+    // the sustained write rate of a single document.
+    static final String PRESENCE = "presence";
+
+    // At most one heartbeat per interval; an unchanged state is only refreshed once per interval too
+    static final long HEARTBEAT_INTERVAL_MS = 5 * 60 * 1000;
+
+    static final String STATE_ACTIVE = "active";
+    static final String STATE_AWAY = "away";
+    static final String STATE_OFFLINE = "offline";
+
+    private static PresenceTracker instance;
+
+    private final Handler handler = new Handler(Looper.getMainLooper());
+    private final Runnable flushRunnable = this::flush;
+    private String pendingState;
+    private String writtenState;
+    private long lastWriteAt = -HEARTBEAT_INTERVAL_MS;
+    private boolean scheduled;
+    // Set while a sign-out waits for its offline write, so nothing overwrites it
+    private String signingOutUid;
+    // Presence document of the signed-in user's department, null until their profile is read
+    private String department;
+
+    public static synchronized PresenceTracker getInstance() {
+        if (instance == null) {
+            instance = new PresenceTracker();
+        }
+        return instance;
+    }
+
+    static String documentFor(@Nullable String department) {
+        return department != null ? department : DepartmentPartitions.UNASSIGNED;
+    }
+
+    // Called whenever the signed-in user's profile is read. A move to another department
+    // removes the entry from the old document and writes the current state to the new one.
+    public void setDepartment(@Nullable String department) {
+        String next = documentFor(department);
+        if (next.equals(this.department)) {
+            return;
+        }
+        String previous = this.department;
+        this.department = next;
+        FirebaseUser user = FirebaseAuth.getInstance().getCurrentUser();
+        if (previous != null && user != null) {
+            FirebaseFirestore.getInstance().collection(PRESENCE).document(previous)
+                    .update(user.getUid(), FieldValue.delete())
+                    .addOnFailureListener(e -> Log.d(TAG, "Presence cleanup failed", e));
+        }
+        writtenState = null;
+        if (pendingState != null) {
+            handler.removeCallbacks(flushRunnable);
+            scheduled = false;
+            flush();
+        }
+    }
+
+    // Called on every interaction; collapsed into the next heartbeat
+    public void onActive() {
+        pendingState = STATE_ACTIVE;
+        long now = SystemClock.elapsedRealtime();
+        schedule(Math.max(0, lastWriteAt + HEARTBEAT_INTERVAL_MS - now));
+    }
+
+    // App went to the background: write immediately so admins see the change
+    public void onBackground() {
+        pendingState = STATE_AWAY;
+        handler.removeCallbacks(flushRunnable);
+        scheduled = false;
+        flush();
+    }
+
+    // Signing out: record offline while the session can still write, and start the next one fresh
+    public Task<Void> onSignOut(String uid) {
+        handler.removeCallbacks(flushRunnable);
+        scheduled = false;
+        pendingState = null;
+        writtenState = null;
+        lastWriteAt = -HEARTBEAT_INTERVAL_MS;
+        signingOutUid = uid;
+        String last = department;
+        department = null;
+        return last != null ? write(last, uid, STATE_OFFLINE) : Tasks.forResult(null);
+    }
+
+    public void onSignedOut() {
+        signingOutUid = null;
+    }
+
+    private void schedule(long delayMs) {
+        if (scheduled) {
+            return;
+        }
+        scheduled = true;
+        handler.postDelayed(flushRunnable, delayMs);
+    }
+
+    private void flush() {
+        scheduled = false;
+        FirebaseUser user = FirebaseAuth.getInstance().getCurrentUser();
+        // Held until the profile says which department document to write to
+        if (user == null || pendingState == null || department == null || user.getUid().equals(signingOutUid)) {
+            return;
+        }
+        long now = SystemClock.elapsedRealtime();
+        if (pendingState.equals(writtenState) && now - lastWriteAt < HEARTBEAT_INTERVAL_MS) {
+            return;
+        }
+
+        String state = pendingState;
+        write(department, user.getUid(), state).addOnFailureListener(e -> Log.d(TAG, "Presence heartbeat failed", e));
+        writtenState = state;
+        lastWriteAt = now;
+    }
+
+    private Task<Void> write(String document, String uid, String state) {
+        Map<String, Object> entry = new HashMap<>();
+        entry.put("state", state);
+        entry.put("lastActive", FieldValue.serverTimestamp());
+        return FirebaseFirestore.getInstance().collection(PRESENCE).document(document)
+                .set(Collections.singletonMap(uid, entry), SetOptions.merge());
+    }
+}
@@ -0,0 +1,35 @@
+package com.example.employee_data_app;
+
+import androidx.annotation.NonNull;
+
+import com.google.firebase.firestore.DocumentSnapshot;
+
+import java.util.HashMap;
+import java.util.Map;
+
+public class ProfileBackfill {
+
+    // Queries that filter or order on a field never return documents that lack it. Existing
+    // profiles are migrated once server-side (loadgen ProfileMigration); a legacy account that
+    // signs in before that fills in its own profile with these values.
+    static Map<String, Object> missingFields(@NonNull DocumentSnapshot doc) {
+        Map<String, Object> missing = new HashMap<>();
+        if (!doc.contains(User.NAME_KEY)) {
+            missing.put(User.NAME_KEY, User.sortKey(doc.getString("fName")));
+        }
+        if (!doc.contains(User.EMAIL_KEY)) {
+            missing.put(User.EMAIL_KEY, User.sortKey(doc.getString("email")));
+        }
+        if (!doc.contains(DepartmentPartitions.FIELD)) {
+            missing.put(DepartmentPartitions.FIELD, DepartmentPartitions.UNASSIGNED);
+        }
+        // The org chart's root query matches an explicit null manager, not a missing field
+        if (!doc.contains(OrgChart.MANAGER)) {
+            missing.put(OrgChart.MANAGER, null);
+        }
+        if (!doc.contains("registeredAt")) {
+            missing.put("registeredAt", User.UNKNOWN_REGISTRATION);
+        }
+        return missing;
+    }
+}
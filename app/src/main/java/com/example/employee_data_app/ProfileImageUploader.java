@@ -0,0 +1,306 @@
+package com.example.employee_data_app;
+
+import android.content.ContentResolver;
+import android.content.Context;
+import android.content.SharedPreferences;
+import android.graphics.Bitmap;
+import android.graphics.BitmapFactory;
+import android.net.Uri;
+import android.os.Handler;
+import android.os.Looper;
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import com.google.firebase.firestore.FirebaseFirestore;
+import com.google.firebase.storage.FirebaseStorage;
+import com.google.firebase.storage.StorageException;
+import com.google.firebase.storage.StorageMetadata;
+import com.google.firebase.storage.StorageReference;
+import com.google.firebase.storage.UploadTask;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+public class ProfileImageUploader {
+
+    private static final String TAG = "ProfileImageUploader";
+    private static final String PREFS = "profile_upload";
+    // Prefs suffixes: the local file an upload session belongs to, and the generation of the local copy
+    private static final String FILE_SUFFIX = "#file";
+    private static final String GENERATION_SUFFIX = "#generation";
+
+    // Target sizes for the re-encoded images
+    static final int PROFILE_MAX_PX = 512;
+    static final int THUMB_MAX_PX = 128;
+    static final int PROFILE_QUALITY = 80;
+    static final int THUMB_QUALITY = 70;
+
+    public interface Callback {
+        void onPrepared(Bitmap profile);
+        void onUploaded();
+        void onFailed(Exception e);
+    }
+
+    private static final ExecutorService executor = Executors.newSingleThreadExecutor();
+
+    private final Context context;
+    private final String userId;
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+    private final SharedPreferences prefs;
+
+    public ProfileImageUploader(Context context, String userId) {
+        this.context = context.getApplicationContext();
+        this.userId = userId;
+        this.prefs = this.context.getSharedPreferences(PREFS, Context.MODE_PRIVATE);
+    }
+
+    // Storage paths are per user so uploads never overwrite each other
+    static String profilePath(String userId) {
+        return "users/" + userId + "/profile.jpg";
+    }
+
+    static String thumbPath(String userId) {
+        return "users/" + userId + "/thumb.jpg";
+    }
+
+    // Decode, downsample and upload the picked image off the main thread
+    public void upload(@NonNull Uri imageUri, @NonNull Callback callback) {
+        executor.execute(() -> {
+            try {
+                Bitmap profile = decodeSampled(context.getContentResolver(), imageUri, PROFILE_MAX_PX);
+                Bitmap thumb = scaleToFit(profile, THUMB_MAX_PX);
+
+                // Each pick gets its own files, so an upload still streaming the last pick is never overwritten
+                long pick = System.nanoTime();
+                File profileFile = writeJpeg(profile, "profile_upload_" + pick + ".jpg", PROFILE_QUALITY);
+                File thumbFile = writeJpeg(thumb, "thumb_upload_" + pick + ".jpg", THUMB_QUALITY);
+                writeJpeg(profile, localCopy().getName(), PROFILE_QUALITY);
+                if (thumb != profile) {
+                    thumb.recycle();
+                }
+
+                mainHandler.post(() -> {
+                    callback.onPrepared(profile);
+                    // The newest pick wins; an earlier one still uploading is abandoned
+                    cancelActive(profilePath(userId));
+                    cancelActive(thumbPath(userId));
+                    startUpload(profileFile, profilePath(userId), null, callback);
+                    startUpload(thumbFile, thumbPath(userId), null, null);
+                });
+            } catch (IOException | OutOfMemoryError e) {
+                Exception ex = e instanceof Exception ? (Exception) e : new IOException(e);
+                Log.e(TAG, "Failed to prepare image", ex);
+                mainHandler.post(() -> callback.onFailed(ex));
+            }
+        });
+    }
+
+    // Resume uploads whose session outlived the process
+    public void resumePending(@Nullable Callback callback) {
+        resume(profilePath(userId), callback);
+        resume(thumbPath(userId), null);
+    }
+
+    private void resume(String path, @Nullable Callback callback) {
+        String session = prefs.getString(path, null);
+        String fileName = prefs.getString(path + FILE_SUFFIX, null);
+        File file = fileName != null ? new File(context.getCacheDir(), fileName) : null;
+        if (session == null || file == null) {
+            return;
+        }
+        if (!file.exists()) {
+            prefs.edit().remove(path).remove(path + FILE_SUFFIX).apply();
+            return;
+        }
+        startUpload(file, path, Uri.parse(session), callback);
+    }
+
+    private void cancelActive(String path) {
+        StorageReference ref = FirebaseStorage.getInstance().getReference().child(path);
+        for (UploadTask active : ref.getActiveUploadTasks()) {
+            active.cancel();
+        }
+    }
+
+    private void startUpload(File file, String path, @Nullable Uri sessionUri, @Nullable Callback callback) {
+        StorageReference ref = FirebaseStorage.getInstance().getReference().child(path);
+
+        // Reattach to a resumed upload of this same file that is still running in this process
+        if (sessionUri != null && !ref.getActiveUploadTasks().isEmpty()) {
+            UploadTask active = ref.getActiveUploadTasks().get(0);
+            attach(active, file, path, callback);
+            return;
+        }
+
+        prefs.edit().putString(path + FILE_SUFFIX, file.getName()).apply();
+        StorageMetadata metadata = new StorageMetadata.Builder()
+                .setContentType("image/jpeg")
+                .build();
+        UploadTask task = sessionUri != null
+                ? ref.putFile(Uri.fromFile(file), metadata, sessionUri)
+                : ref.putFile(Uri.fromFile(file), metadata);
+        attach(task, file, path, callback);
+    }
+
+    // Prefs for a path belong to the newest pick, so a superseded upload leaves them alone
+    private boolean isCurrent(File file, String path) {
+        return file.getName().equals(prefs.getString(path + FILE_SUFFIX, null));
+    }
+
+    private void attach(UploadTask task, File file, String path, @Nullable Callback callback) {
+        task.addOnProgressListener(snapshot -> {
+            Uri session = snapshot.getUploadSessionUri();
+            if (session != null && isCurrent(file, path)
+                    && !session.toString().equals(prefs.getString(path, null))) {
+                prefs.edit().putString(path, session.toString()).apply();
+            }
+        }).addOnSuccessListener(snapshot -> {
+            file.delete();
+            if (!isCurrent(file, path)) {
+                return;
+            }
+            prefs.edit().remove(path).remove(path + FILE_SUFFIX).apply();
+            if (path.equals(thumbPath(userId)) && snapshot.getMetadata() != null) {
+                publishGeneration(snapshot.getMetadata().getGeneration());
+            }
+            if (callback != null) {
+                callback.onUploaded();
+            }
+        }).addOnFailureListener(e -> {
+            file.delete();
+            if (!isCurrent(file, path)) {
+                return;
+            }
+            prefs.edit().remove(path).remove(path + FILE_SUFFIX).apply();
+            if (e instanceof StorageException
+                    && ((StorageException) e).getErrorCode() == StorageException.ERROR_CANCELED) {
+                return;
+            }
+            Log.e(TAG, "Upload failed for " + path, e);
+            if (callback != null) {
+                callback.onFailed(e);
+            }
+        });
+    }
+
+    // Avatar caches are keyed by generation, so bumping it invalidates stale thumbnails
+    private void publishGeneration(@Nullable String generation) {
+        if (generation == null) {
+            return;
+        }
+        // The local copy already shows this upload, so the profile screen need not download it
+        prefs.edit().putString(userId + GENERATION_SUFFIX, generation).apply();
+        FirebaseFirestore.getInstance().collection("users").document(userId)
+                .update("photoGeneration", generation)
+                .addOnFailureListener(e -> Log.e(TAG, "Failed to publish photo generation", e));
+    }
+
+    // Last picture this device uploaded or downloaded for the user
+    private File localCopy() {
+        return new File(context.getCacheDir(), "profile_" + userId + ".jpg");
+    }
+
+    // Local copies and pending upload files are personal data, dropped when the user signs out
+    static void deleteLocalCopies(Context context) {
+        File[] files = context.getCacheDir().listFiles((dir, name) -> name.startsWith("profile_")
+                || name.startsWith("thumb_upload_"));
+        if (files != null) {
+            for (File file : files) {
+                file.delete();
+            }
+        }
+        context.getSharedPreferences(PREFS, Context.MODE_PRIVATE).edit().clear().apply();
+    }
+
+    // Show the stored picture; download it again only when another device published a newer one
+    public void showStored(@Nullable String photoGeneration, @NonNull Callback callback) {
+        File local = localCopy();
+        boolean uploading = prefs.contains(thumbPath(userId) + FILE_SUFFIX);
+        boolean stale = photoGeneration != null
+                && !photoGeneration.equals(prefs.getString(userId + GENERATION_SUFFIX, null));
+        if (local.exists() && (!stale || uploading)) {
+            decodeLocal(local, callback);
+            return;
+        }
+        if (photoGeneration == null || uploading) {
+            return;
+        }
+        FirebaseStorage.getInstance().getReference().child(profilePath(userId)).getFile(local)
+                .addOnSuccessListener(snapshot -> {
+                    prefs.edit().putString(userId + GENERATION_SUFFIX, photoGeneration).apply();
+                    decodeLocal(local, callback);
+                })
+                .addOnFailureListener(e -> Log.e(TAG, "Failed to download profile picture", e));
+    }
+
+    private void decodeLocal(File file, Callback callback) {
+        executor.execute(() -> {
+            Bitmap bitmap = BitmapFactory.decodeFile(file.getAbsolutePath());
+            if (bitmap != null) {
+                mainHandler.post(() -> callback.onPrepared(bitmap));
+            }
+        });
+    }
+
+    // Decode with inSampleSize so the full-resolution image is never held in memory
+    static Bitmap decodeSampled(ContentResolver resolver, Uri uri, int maxPx) throws IOException {
+        BitmapFactory.Options bounds = new BitmapFactory.Options();
+        bounds.inJustDecodeBounds = true;
+        try (InputStream in = resolver.openInputStream(uri)) {
+            BitmapFactory.decodeStream(in, null, bounds);
+        }
+        if (bounds.outWidth <= 0 || bounds.outHeight <= 0) {
+            throw new IOException("Unable to read image bounds");
+        }
+
+        BitmapFactory.Options options = new BitmapFactory.Options();
+        options.inSampleSize = calculateInSampleSize(bounds.outWidth, bounds.outHeight, maxPx);
+        options.inPreferredConfig = Bitmap.Config.RGB_565;
+        Bitmap sampled;
+        try (InputStream in = resolver.openInputStream(uri)) {
+            sampled = BitmapFactory.decodeStream(in, null, options);
+        }
+        if (sampled == null) {
+            throw new IOException("Unable to decode image");
+        }
+        Bitmap scaled = scaleToFit(sampled, maxPx);
+        if (scaled != sampled) {
+            sampled.recycle();
+        }
+        return scaled;
+    }
+
+    // Largest power of two that keeps both sides at or above maxPx
+    static int calculateInSampleSize(int width, int height, int maxPx) {
+        int sampleSize = 1;
+        while (width / (sampleSize * 2) >= maxPx && height / (sampleSize * 2) >= maxPx) {
+            sampleSize *= 2;
+        }
+        return sampleSize;
+    }
+
+    static Bitmap scaleToFit(Bitmap source, int maxPx) {
+        int width = source.getWidth();
+        int height = source.getHeight();
+        int longest = Math.max(width, height);
+        if (longest <= maxPx) {
+            return source;
+        }
+        float scale = (float) maxPx / longest;
+        return Bitmap.createScaledBitmap(source, Math.round(width * scale), Math.round(height * scale), true);
+    }
+
+    private File writeJpeg(Bitmap bitmap, String fileName, int quality) throws IOException {
+        File file = new File(context.getCacheDir(), fileName);
+        try (FileOutputStream out = new FileOutputStream(file)) {
+            bitmap.compress(Bitmap.CompressFormat.JPEG, quality, out);
+        }
+        return file;
+    }
+}
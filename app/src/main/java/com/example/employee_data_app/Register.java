@@ -1,47 +1,45 @@
 package com.example.employee_data_app;
 
-import static android.content.ContentValues.TAG;
-
 import android.content.Intent;
 import android.os.Bundle;
+import android.os.Handler;
+import android.os.Looper;
+import android.text.Editable;
 import android.text.TextUtils;
+import android.text.TextWatcher;
 import android.text.method.HideReturnsTransformationMethod;
 import android.text.method.PasswordTransformationMethod;
-import android.util.Log;
 import android.view.View;
 import android.widget.Button;
 import android.widget.EditText;
 import android.widget.ImageView;
 import android.widget.ProgressBar;
+import android.widget.Spinner;
 import android.widget.TextView;
 import android.widget.Toast;
 
-import androidx.annotation.NonNull;
 import androidx.appcompat.app.AppCompatActivity;
 
-import com.google.android.gms.tasks.OnCompleteListener;
-import com.google.android.gms.tasks.OnFailureListener;
-import com.google.android.gms.tasks.OnSuccessListener;
-import com.google.android.gms.tasks.Task;
-import com.google.firebase.auth.AuthResult;
 import com.google.firebase.auth.FirebaseAuth;
 import com.google.firebase.auth.FirebaseUser;
-import com.google.firebase.firestore.DocumentReference;
 import com.google.firebase.firestore.FirebaseFirestore;
 
-import java.util.HashMap;
-import java.util.Map;
-
 public class Register extends AppCompatActivity {
 
     // Fields
     private EditText mFullName, mEmail, mPassword, mConfirmPwd, mPhone;
+    private Spinner mDepartment;
     private Button mRegisterBtn;
     private TextView mLoginBtn;
     private ProgressBar progressBar;
     private FirebaseAuth fAuth;
     private FirebaseFirestore fStore;
-    private String userID;
+    private UniquenessIndex uniquenessIndex;
+    private RegistrationPipeline pipeline;
+
+    // Delay before an as-you-type availability lookup fires
+    private static final long AVAILABILITY_DEBOUNCE_MS = 400;
+    private final Handler debounceHandler = new Handler(Looper.getMainLooper());
 
     @Override
     protected void onCreate(Bundle savedInstanceState) {
@@ -54,9 +52,15 @@ public class Register extends AppCompatActivity {
         // Firebase initialization
         fAuth = FirebaseAuth.getInstance();
         fStore = FirebaseFirestore.getInstance();
+        uniquenessIndex = new UniquenessIndex(fStore);
+        pipeline = RegistrationPipeline.getInstance(this);
 
         // Click listeners
         setClickListeners();
+
+        // Live availability checks
+        watchAvailability(mEmail, UniquenessIndex.EMAILS, UniquenessIndex.EMAIL_TAKEN);
+        watchAvailability(mPhone, UniquenessIndex.PHONES, UniquenessIndex.PHONE_TAKEN);
     }
 
     // View binding
@@ -66,6 +70,7 @@ public class Register extends AppCompatActivity {
         mPassword = findViewById(R.id.password);
         mConfirmPwd = findViewById(R.id.confirm_password);
         mPhone = findViewById(R.id.phone);
+        mDepartment = findViewById(R.id.department);
         mRegisterBtn = findViewById(R.id.registerBtn);
         mLoginBtn = findViewById(R.id.createTxt);
         progressBar = findViewById(R.id.progressBar);
@@ -94,6 +99,45 @@ public class Register extends AppCompatActivity {
         }
     }
 
+    // Debounced availability lookup for a unique field
+    private void watchAvailability(EditText editText, String collection, String takenMessage) {
+        editText.addTextChangedListener(new TextWatcher() {
+            private Runnable pending;
+
+            @Override
+            public void beforeTextChanged(CharSequence s, int start, int count, int after) {}
+
+            @Override
+            public void onTextChanged(CharSequence s, int start, int before, int count) {}
+
+            @Override
+            public void afterTextChanged(Editable s) {
+                if (pending != null) {
+                    debounceHandler.removeCallbacks(pending);
+                }
+                String value = s.toString().trim();
+                boolean valid = UniquenessIndex.EMAILS.equals(collection)
+                        ? UniquenessIndex.isValidEmail(value) : UniquenessIndex.isValidMobile(value);
+                if (!valid) {
+                    return;
+                }
+                pending = () -> uniquenessIndex.checkAvailable(collection, value, (checked, available) -> {
+                    // Ignore answers for text the user has already changed
+                    if (!available && checked.equals(editText.getText().toString().trim())) {
+                        showError(editText, takenMessage);
+                    }
+                });
+                debounceHandler.postDelayed(pending, AVAILABILITY_DEBOUNCE_MS);
+            }
+        });
+    }
+
+    @Override
+    protected void onDestroy() {
+        super.onDestroy();
+        debounceHandler.removeCallbacksAndMessages(null);
+    }
+
     // Go to login activity
     private void goToLogin() {
         startActivity(new Intent(getApplicationContext(), Login.class));
@@ -131,44 +175,49 @@ public class Register extends AppCompatActivity {
         return true;
     }
 
-    // Create user in Firebase
+    // Create user in Firebase; the post-signup steps run through the registration pipeline
     private void createUser() {
         String email = mEmail.getText().toString().trim();
         String password = mPassword.getText().toString().trim();
         String fullName = mFullName.getText().toString().trim();
         String phone = mPhone.getText().toString().trim();
+        String department = mDepartment.getSelectedItem().toString();
 
+        // An earlier attempt already created this account; finish its run instead of signing up again
+        FirebaseUser pending = pipeline.pendingUser(email);
+        pipeline.begin(fullName, email, phone, department);
+        if (pending != null) {
+            finishRegistration(pending);
+            return;
+        }
         fAuth.createUserWithEmailAndPassword(email, password)
                 .addOnCompleteListener(task -> {
                     if (task.isSuccessful()) {
-                        sendVerificationEmail();
-                        saveUserData(fullName, email, phone);
-                        goToLogin();
+                        finishRegistration(task.getResult().getUser());
                     } else {
+                        pipeline.abandon();
                         Toast.makeText(Register.this, "Error !" + task.getException().getMessage(), Toast.LENGTH_SHORT).show();
                         progressBar.setVisibility(View.GONE);
                     }
                 });
     }
 
-    // Send email verification
-    private void sendVerificationEmail() {
-        FirebaseUser fuser = fAuth.getCurrentUser();
-        fuser.sendEmailVerification()
-                .addOnSuccessListener(aVoid -> Toast.makeText(Register.this, "Verification Email Has been Sent.", Toast.LENGTH_SHORT).show())
-                .addOnFailureListener(e -> Log.d(TAG, "onFailure: Verification Link is not Sent." + e.getMessage()));
+    private void finishRegistration(FirebaseUser user) {
+        // Only the profile is awaited; the verification email follows on its own
+        pipeline.run(user)
+                .addOnSuccessListener(aVoid -> goToLogin())
+                .addOnFailureListener(this::onSaveUserDataFailed);
     }
 
-    // Save user data in Firestore
-    private void saveUserData(String fullName, String email, String phone) {
-        userID = fAuth.getCurrentUser().getUid();
-        DocumentReference documentReference = fStore.collection("users").document(userID);
-        Map<String, Object> user = new HashMap<>();
-        user.put("fName", fullName);
-        user.put("email", email);
-        user.put("phone", phone);
-        user.put("isUser", "1");
-        documentReference.set(user).addOnSuccessListener(aVoid -> Log.d(TAG, "onSuccess: user Profile is created for" + userID));
+    // The pipeline already removed the account if a duplicate lost the race
+    private void onSaveUserDataFailed(Exception e) {
+        progressBar.setVisibility(View.GONE);
+        if (RegistrationPipeline.isDuplicate(e)) {
+            showError(UniquenessIndex.isEmailTaken(e) ? mEmail : mPhone, e.getMessage());
+        } else {
+            // State is kept, so the profile is finished on the next launch or login
+            Toast.makeText(Register.this, "Error !" + e.getMessage(), Toast.LENGTH_SHORT).show();
+        }
     }
 
     // Show error message for EditText
@@ -178,14 +227,12 @@ public class Register extends AppCompatActivity {
 
     // Validate email format
     private boolean isValidEmail(String email) {
-        String emailPattern = "[a-zA-Z0-9._-]+@[a-z]+\\.+[a-z]+";
-        return email.matches(emailPattern);
+        return UniquenessIndex.isValidEmail(email);
     }
 
     // Validate mobile number format
     private boolean isValidMobile(String mobile) {
-        String mobilePattern = "09\\d{9}";
-        return mobile.matches(mobilePattern);
+        return UniquenessIndex.isValidMobile(mobile);
     }
 
     // Validation for password
@@ -0,0 +1,202 @@
+package com.example.employee_data_app;
+
+import android.content.Context;
+import android.content.SharedPreferences;
+import android.util.Log;
+import android.widget.Toast;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import com.google.android.gms.tasks.Task;
+import com.google.android.gms.tasks.Tasks;
+import com.google.firebase.auth.FirebaseAuth;
+import com.google.firebase.auth.FirebaseUser;
+import com.google.firebase.firestore.DocumentReference;
+import com.google.firebase.firestore.DocumentSnapshot;
+import com.google.firebase.firestore.FieldValue;
+import com.google.firebase.firestore.FirebaseFirestore;
+import com.google.firebase.firestore.Transaction;
+
+import java.util.HashMap;
+import java.util.Map;
+
+public class RegistrationPipeline {
+
+    private static final String TAG = "RegistrationPipeline";
+    private static final String PREFS = "registration";
+
+    private static final String KEY_UID = "uid";
+    private static final String KEY_NAME = "fName";
+    private static final String KEY_EMAIL = "email";
+    private static final String KEY_PHONE = "phone";
+    private static final String KEY_DEPARTMENT = "department";
+    private static final String KEY_PROFILE_SAVED = "profileSaved";
+
+    private static RegistrationPipeline instance;
+
+    private final Context context;
+    private final SharedPreferences prefs;
+    private final FirebaseAuth fAuth;
+    private final FirebaseFirestore fStore;
+    private final UniquenessIndex uniquenessIndex;
+
+    // Shared by Register, Login and app start so a resumed run is never started twice
+    @Nullable
+    private Task<Void> inFlight;
+
+    public static synchronized RegistrationPipeline getInstance(Context context) {
+        if (instance == null) {
+            instance = new RegistrationPipeline(context.getApplicationContext());
+        }
+        return instance;
+    }
+
+    private RegistrationPipeline(Context context) {
+        this.context = context;
+        prefs = context.getSharedPreferences(PREFS, Context.MODE_PRIVATE);
+        fAuth = FirebaseAuth.getInstance();
+        fStore = FirebaseFirestore.getInstance();
+        uniquenessIndex = new UniquenessIndex(fStore);
+    }
+
+    // Persist the form before the account exists so a kill during signup can still finish.
+    // Progress made for the same email is kept, so a retry picks up where the last run stopped.
+    public void begin(String fullName, String email, String phone, String department) {
+        SharedPreferences.Editor editor = prefs.edit();
+        if (!email.equalsIgnoreCase(prefs.getString(KEY_EMAIL, null))) {
+            editor.clear();
+        }
+        editor.putString(KEY_NAME, fullName)
+                .putString(KEY_EMAIL, email)
+                .putString(KEY_PHONE, phone)
+                .putString(KEY_DEPARTMENT, department)
+                .apply();
+    }
+
+    // The account was never created, nothing to resume. Once a run has recorded a uid the
+    // account exists, so its state stays for resumePending even if a later signup attempt fails.
+    public void abandon() {
+        if (!prefs.contains(KEY_UID)) {
+            prefs.edit().clear().apply();
+        }
+    }
+
+    // The signed-in account left behind by an earlier attempt with this email, if any
+    @Nullable
+    public FirebaseUser pendingUser(String email) {
+        FirebaseUser user = fAuth.getCurrentUser();
+        if (user == null || !email.equalsIgnoreCase(prefs.getString(KEY_EMAIL, null))) {
+            return null;
+        }
+        return user.getUid().equals(prefs.getString(KEY_UID, null)) ? user : null;
+    }
+
+    // Completes once the profile is durable, which is all the role lookup after signup needs.
+    // The verification email starts as soon as the profile is saved, so an account removed as
+    // a duplicate never gets a link, and nobody waits for the send.
+    public Task<Void> run(@NonNull FirebaseUser user) {
+        if (inFlight != null && !inFlight.isComplete()) {
+            return inFlight;
+        }
+        prefs.edit().putString(KEY_UID, user.getUid()).apply();
+        String uid = user.getUid();
+        String fullName = prefs.getString(KEY_NAME, null);
+        String email = prefs.getString(KEY_EMAIL, null);
+        String phone = prefs.getString(KEY_PHONE, null);
+        String department = prefs.getString(KEY_DEPARTMENT, DepartmentPartitions.UNASSIGNED);
+
+        Task<Void> profile = prefs.getBoolean(KEY_PROFILE_SAVED, false)
+                ? Tasks.forResult(null)
+                : RequestGate.getInstance().run(RequestGate.PROFILE_WRITE, uid,
+                        () -> saveProfile(uid, fullName, email, phone, department))
+                        .addOnSuccessListener(aVoid -> prefs.edit().putBoolean(KEY_PROFILE_SAVED, true).apply());
+
+        inFlight = profile.continueWithTask(saved -> {
+            if (!saved.isSuccessful()) {
+                Exception e = saved.getException();
+                if (isDuplicate(e)) {
+                    // A duplicate lost the race; remove the half-created account so the user can retry
+                    prefs.edit().clear().apply();
+                    user.delete();
+                }
+                return Tasks.forException(e);
+            }
+            sendVerification(user);
+            return Tasks.forResult(null);
+        });
+        return inFlight;
+    }
+
+    // Runs after the caller has moved on; the state is kept until the send has been tried,
+    // so a kill before then sends the link on the next resume
+    private void sendVerification(FirebaseUser user) {
+        RequestGate.getInstance().run(RequestGate.SEND_VERIFICATION, user.getUid(), user::sendEmailVerification)
+                .addOnCompleteListener(sent -> {
+                    if (sent.isSuccessful()) {
+                        Toast.makeText(context, "Verification Email Has been Sent.", Toast.LENGTH_SHORT).show();
+                    } else {
+                        // Not fatal: Login and MainActivity both offer to resend the link
+                        Log.d(TAG, "onFailure: Verification Link is not Sent." + sent.getException());
+                    }
+                    prefs.edit().clear().apply();
+                });
+    }
+
+    // Finish a registration interrupted after the account was created
+    public Task<Void> resumePending() {
+        if (inFlight != null && !inFlight.isComplete()) {
+            return inFlight;
+        }
+        String email = prefs.getString(KEY_EMAIL, null);
+        if (email == null) {
+            return Tasks.forResult(null);
+        }
+        FirebaseUser user = fAuth.getCurrentUser();
+        if (user == null) {
+            // Keep the state; the account may still sign in on this device
+            return Tasks.forResult(null);
+        }
+        if (!email.equalsIgnoreCase(user.getEmail())) {
+            abandon();
+            return Tasks.forResult(null);
+        }
+        Log.d(TAG, "Resuming registration for " + user.getUid());
+        return run(user);
+    }
+
+    // Idempotent: a profile that already exists for this uid is left untouched
+    private Task<Void> saveProfile(String uid, String fullName, String email, String phone, String department) {
+        DocumentReference documentReference = fStore.collection("users").document(uid);
+        Map<String, Object> user = new HashMap<>();
+        user.put("fName", fullName);
+        user.put("email", email);
+        user.put(User.NAME_KEY, User.sortKey(fullName));
+        user.put(User.EMAIL_KEY, User.sortKey(email));
+        user.put("phone", phone);
+        user.put("isUser", "1");
+        user.put(UniquenessIndex.INDEXED, true);
+        user.put(DepartmentPartitions.FIELD, department);
+        // New employees start at the top of the org until an admin assigns a manager
+        user.put(OrgChart.MANAGER, null);
+        user.put(OrgChart.SUBTREE, 0);
+        user.put("registeredAt", FieldValue.serverTimestamp());
+        return fStore.runTransaction((Transaction.Function<Void>) transaction -> {
+            DocumentSnapshot existing = transaction.get(documentReference);
+            if (existing.exists()) {
+                return null;
+            }
+            uniquenessIndex.claim(transaction, uid, email, phone);
+            transaction.set(documentReference, user);
+            return null;
+        }).addOnSuccessListener(aVoid -> {
+            Log.d(TAG, "onSuccess: user Profile is created for" + uid);
+            UniquenessIndex.forget(UniquenessIndex.EMAILS, UniquenessIndex.normalizeEmail(email));
+            UniquenessIndex.forget(UniquenessIndex.PHONES, UniquenessIndex.normalizePhone(phone));
+        });
+    }
+
+    static boolean isDuplicate(@Nullable Exception e) {
+        return UniquenessIndex.isTaken(e);
+    }
+}
@@ -0,0 +1,161 @@
+package com.example.employee_data_app;
+
+import android.os.Handler;
+import android.os.Looper;
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import com.google.android.gms.tasks.Task;
+import com.google.android.gms.tasks.TaskCompletionSource;
+import com.google.firebase.FirebaseNetworkException;
+import com.google.firebase.firestore.FirebaseFirestoreException;
+
+import java.util.ArrayDeque;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.CancellationException;
+
+public class RequestGate {
+
+    private static final String TAG = "RequestGate";
+
+    // Operation types, each with its own concurrency limit
+    static final String SIGN_IN = "signIn";
+    static final String SEND_VERIFICATION = "sendVerification";
+    static final String PROFILE_WRITE = "profileWrite";
+
+    private static final int MAX_ATTEMPTS = 4;
+    private static final long BASE_BACKOFF_MS = 500;
+    private static final long MAX_BACKOFF_MS = 8000;
+
+    public interface Call<T> {
+        Task<T> start();
+    }
+
+    private static RequestGate instance;
+
+    // Only touched on the main thread, where Task listeners run by default
+    private final Handler handler = new Handler(Looper.getMainLooper());
+    private final Random random = new Random();
+    private final Map<String, Task<?>> inFlight = new HashMap<>();
+    private final Map<String, Integer> limits = new HashMap<>();
+    private final Map<String, Integer> running = new HashMap<>();
+    private final Map<String, ArrayDeque<Runnable>> waiting = new HashMap<>();
+
+    public static synchronized RequestGate getInstance() {
+        if (instance == null) {
+            instance = new RequestGate();
+        }
+        return instance;
+    }
+
+    private RequestGate() {
+        limits.put(SIGN_IN, 1);
+        limits.put(SEND_VERIFICATION, 1);
+        limits.put(PROFILE_WRITE, 2);
+    }
+
+    public boolean isInFlight(String operation, String key) {
+        return inFlight.containsKey(operation + ":" + key);
+    }
+
+    // Identical requests share one Task until it completes; transient failures are retried
+    @SuppressWarnings("unchecked")
+    public <T> Task<T> run(String operation, String key, @NonNull Call<T> call) {
+        String id = operation + ":" + key;
+        Task<T> existing = (Task<T>) inFlight.get(id);
+        if (existing != null) {
+            return existing;
+        }
+        TaskCompletionSource<T> result = new TaskCompletionSource<>();
+        inFlight.put(id, result.getTask());
+        result.getTask().addOnCompleteListener(task -> inFlight.remove(id));
+        attempt(operation, call, 0, result);
+        return result.getTask();
+    }
+
+    private <T> void attempt(String operation, Call<T> call, int attempt, TaskCompletionSource<T> result) {
+        acquire(operation, () -> {
+            Task<T> started;
+            try {
+                started = call.start();
+            } catch (RuntimeException e) {
+                // A call that throws instead of returning a Task still gives back its slot
+                release(operation);
+                result.setException(e);
+                return;
+            }
+            started.addOnCompleteListener(task -> onAttemptComplete(operation, call, attempt, result, task));
+        });
+    }
+
+    private <T> void onAttemptComplete(String operation, Call<T> call, int attempt,
+                                       TaskCompletionSource<T> result, Task<T> task) {
+        release(operation);
+        if (task.isSuccessful()) {
+            result.setResult(task.getResult());
+            return;
+        }
+        Exception e = task.getException() != null ? task.getException() : new CancellationException();
+        if (attempt + 1 >= MAX_ATTEMPTS || !isTransient(e)) {
+            result.setException(e);
+            return;
+        }
+        // Full jitter keeps clients that failed together from retrying together
+        long cap = Math.min(MAX_BACKOFF_MS, BASE_BACKOFF_MS << attempt);
+        long delay = (long) (random.nextDouble() * cap);
+        Log.d(TAG, operation + " failed, retrying in " + delay + " ms", e);
+        handler.postDelayed(() -> attempt(operation, call, attempt + 1, result), delay);
+    }
+
+    // Start now if the operation is under its limit, otherwise queue behind the running ones
+    private void acquire(String operation, Runnable start) {
+        int count = running.containsKey(operation) ? running.get(operation) : 0;
+        Integer limit = limits.get(operation);
+        if (limit == null || count < limit) {
+            running.put(operation, count + 1);
+            start.run();
+            return;
+        }
+        ArrayDeque<Runnable> queue = waiting.get(operation);
+        if (queue == null) {
+            queue = new ArrayDeque<>();
+            waiting.put(operation, queue);
+        }
+        queue.add(start);
+    }
+
+    private void release(String operation) {
+        ArrayDeque<Runnable> queue = waiting.get(operation);
+        Runnable next = queue != null ? queue.poll() : null;
+        if (next != null) {
+            next.run();
+        } else {
+            running.put(operation, Math.max(0, running.get(operation) - 1));
+        }
+    }
+
+    // Auth throttling (FirebaseTooManyRequestsException) is not retried: its lockout lasts far
+    // longer than this backoff, and every retry of a sign-in counts against it again
+    static boolean isTransient(@Nullable Exception e) {
+        if (e instanceof FirebaseNetworkException) {
+            return true;
+        }
+        if (e instanceof FirebaseFirestoreException) {
+            switch (((FirebaseFirestoreException) e).getCode()) {
+                case UNAVAILABLE:
+                case DEADLINE_EXCEEDED:
+                case ABORTED:
+                case INTERNAL:
+                case RESOURCE_EXHAUSTED:
+                    return true;
+                default:
+                    return false;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,134 @@
+package com.example.employee_data_app;
+
+import android.os.Handler;
+import android.os.Looper;
+import android.util.LruCache;
+import android.widget.TextView;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.core.text.PrecomputedTextCompat;
+import androidx.core.widget.TextViewCompat;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+public class RowTextPrecomputer {
+
+    // Name, email and phone measured ahead of time for one row
+    static class RowText {
+        final PrecomputedTextCompat name, email, phone;
+
+        RowText(PrecomputedTextCompat name, PrecomputedTextCompat email, PrecomputedTextCompat phone) {
+            this.name = name;
+            this.email = email;
+            this.phone = phone;
+        }
+
+        // Chars plus one measured advance per char, and a fixed cost per layout
+        int byteCost() {
+            int chars = name.length() + email.length() + phone.length();
+            return chars * 6 + 3 * 96;
+        }
+    }
+
+    private static final ExecutorService executor = Executors.newSingleThreadExecutor();
+
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+    // User keeps identity equality, so a replaced User object gets measured again.
+    // Evicted rows simply fall back to plain setText.
+    final LruCache<User, RowText> texts;
+    private final List<User> pending = new ArrayList<>();
+    // Rows handed to the executor and not removed since; results for anything else are dropped
+    private final Set<User> measuring = Collections.newSetFromMap(new IdentityHashMap<>());
+    // Bumped by clear() and by a registry trim, so batches started before either are discarded
+    private int generation;
+    private PrecomputedTextCompat.Params params;
+
+    public RowTextPrecomputer(long budgetBytes) {
+        texts = new LruCache<User, RowText>((int) Math.min(budgetBytes, Integer.MAX_VALUE)) {
+            @Override
+            protected int sizeOf(User key, RowText value) {
+                return value.byteCost();
+            }
+
+            @Override
+            public void trimToSize(int maxSize) {
+                super.trimToSize(maxSize);
+                // put() trims to the full budget; anything smaller is memory pressure
+                if (maxSize < maxSize()) {
+                    generation++;
+                }
+            }
+        };
+    }
+
+    // All three row TextViews share one style, so one set of params covers them
+    public void setParams(@NonNull TextView sample) {
+        if (params != null) {
+            return;
+        }
+        params = TextViewCompat.getTextMetricsParams(sample);
+        if (!pending.isEmpty()) {
+            List<User> users = new ArrayList<>(pending);
+            pending.clear();
+            submit(users);
+        }
+    }
+
+    // Measure rows on a background thread; called on the main thread as the list is built
+    public void submit(@NonNull List<User> users) {
+        if (params == null) {
+            pending.addAll(users);
+            return;
+        }
+        List<User> batch = new ArrayList<>(users);
+        measuring.addAll(batch);
+        int submittedAt = generation;
+        PrecomputedTextCompat.Params p = params;
+        executor.execute(() -> {
+            Map<User, RowText> computed = new IdentityHashMap<>();
+            for (User user : batch) {
+                computed.put(user, new RowText(
+                        create(user.fName, p),
+                        create(user.email, p),
+                        create(user.phone, p)));
+            }
+            mainHandler.post(() -> {
+                for (Map.Entry<User, RowText> e : computed.entrySet()) {
+                    if (measuring.remove(e.getKey()) && submittedAt == generation) {
+                        texts.put(e.getKey(), e.getValue());
+                    }
+                }
+            });
+        });
+    }
+
+    public void remove(@NonNull User user) {
+        texts.remove(user);
+        pending.remove(user);
+        measuring.remove(user);
+    }
+
+    public void clear() {
+        texts.evictAll();
+        pending.clear();
+        measuring.clear();
+        generation++;
+    }
+
+    @Nullable
+    RowText get(@NonNull User user) {
+        return texts.get(user);
+    }
+
+    private static PrecomputedTextCompat create(@Nullable String text, PrecomputedTextCompat.Params p) {
+        return PrecomputedTextCompat.create(text != null ? text : "", p);
+    }
+}
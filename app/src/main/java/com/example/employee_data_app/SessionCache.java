@@ -0,0 +1,84 @@
+package com.example.employee_data_app;
+
+import android.content.Context;
+import android.content.SharedPreferences;
+import android.os.Handler;
+import android.os.Looper;
+
+import androidx.annotation.Nullable;
+
+import com.google.firebase.auth.FirebaseAuth;
+import com.google.firebase.auth.FirebaseUser;
+import com.google.firebase.firestore.DocumentSnapshot;
+
+public class SessionCache {
+
+    private static final String PREFS = "session";
+    private static final String KEY_UID = "uid";
+    private static final String KEY_ROLE = "role";
+
+    static final String ROLE_ADMIN = "admin";
+    static final String ROLE_USER = "user";
+
+    // Longest a sign-out waits for the offline presence write
+    private static final long SIGN_OUT_FLUSH_MS = 3000;
+
+    private static SharedPreferences prefs(Context context) {
+        return context.getApplicationContext().getSharedPreferences(PREFS, Context.MODE_PRIVATE);
+    }
+
+    // Role recorded at the last successful lookup, only if it belongs to this uid
+    @Nullable
+    static String role(Context context, String uid) {
+        SharedPreferences prefs = prefs(context);
+        if (!uid.equals(prefs.getString(KEY_UID, null))) {
+            return null;
+        }
+        return prefs.getString(KEY_ROLE, null);
+    }
+
+    static void saveRole(Context context, String uid, @Nullable String role) {
+        if (role == null) {
+            clear(context);
+            return;
+        }
+        prefs(context).edit().putString(KEY_UID, uid).putString(KEY_ROLE, role).apply();
+    }
+
+    static void clear(Context context) {
+        prefs(context).edit().clear().apply();
+    }
+
+    // Every sign-out path goes through here so nothing from the session outlives it
+    static void signOut(Context context) {
+        FirebaseUser user = FirebaseAuth.getInstance().getCurrentUser();
+        if (user != null) {
+            // Firestore only sends a user's writes while that user is signed in, so auth is
+            // dropped once the offline state is acknowledged, or after a short wait when offline
+            Runnable finish = () -> {
+                // A fresh sign-in in the meantime replaces the user object and is left alone
+                if (FirebaseAuth.getInstance().getCurrentUser() == user) {
+                    FirebaseAuth.getInstance().signOut();
+                }
+                PresenceTracker.getInstance().onSignedOut();
+            };
+            PresenceTracker.getInstance().onSignOut(user.getUid()).addOnCompleteListener(task -> finish.run());
+            new Handler(Looper.getMainLooper()).postDelayed(finish, SIGN_OUT_FLUSH_MS);
+        }
+        clear(context);
+        DirectorySnapshot.deleteAll(context.getApplicationContext());
+        ProfileImageUploader.deleteLocalCopies(context.getApplicationContext());
+    }
+
+    // Same precedence as the Login routing: admin wins over user
+    @Nullable
+    static String roleOf(DocumentSnapshot documentSnapshot) {
+        if (documentSnapshot.getString("isAdmin") != null) {
+            return ROLE_ADMIN;
+        }
+        if (documentSnapshot.getString("isUser") != null) {
+            return ROLE_USER;
+        }
+        return null;
+    }
+}
@@ -0,0 +1,25 @@
+package com.example.employee_data_app;
+
+import android.os.SystemClock;
+import android.util.Log;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+public class StartupTimings {
+
+    private static final String TAG = "StartupTimings";
+
+    // Initializer name to wall time on the thread that ran it, in start order
+    private static final Map<String, Long> timings = new LinkedHashMap<>();
+
+    static synchronized void record(String name, long startMillis) {
+        long elapsed = SystemClock.elapsedRealtime() - startMillis;
+        timings.put(name, elapsed);
+        Log.d(TAG, name + " took " + elapsed + " ms");
+    }
+
+    public static synchronized Map<String, Long> snapshot() {
+        return new LinkedHashMap<>(timings);
+    }
+}
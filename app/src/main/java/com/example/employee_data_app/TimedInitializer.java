@@ -0,0 +1,34 @@
+package com.example.employee_data_app;
+
+import android.content.Context;
+import android.os.SystemClock;
+
+import androidx.annotation.NonNull;
+import androidx.startup.Initializer;
+
+import java.util.Collections;
+import java.util.List;
+
+// Base for the App Startup initializers; reports how long each one blocks its thread
+public abstract class TimedInitializer<T> implements Initializer<T> {
+
+    @NonNull
+    @Override
+    public final T create(@NonNull Context context) {
+        long start = SystemClock.elapsedRealtime();
+        try {
+            return createTimed(context);
+        } finally {
+            StartupTimings.record(getClass().getSimpleName(), start);
+        }
+    }
+
+    @NonNull
+    protected abstract T createTimed(@NonNull Context context);
+
+    @NonNull
+    @Override
+    public List<Class<? extends Initializer<?>>> dependencies() {
+        return Collections.emptyList();
+    }
+}
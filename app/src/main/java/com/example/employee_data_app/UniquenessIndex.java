@@ -0,0 +1,184 @@
+package com.example.employee_data_app;
+
+import android.util.LruCache;
+import android.util.Patterns;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import com.google.android.gms.tasks.Task;
+import com.google.firebase.firestore.DocumentReference;
+import com.google.firebase.firestore.DocumentSnapshot;
+import com.google.firebase.firestore.FirebaseFirestore;
+import com.google.firebase.firestore.FirebaseFirestoreException;
+import com.google.firebase.firestore.Transaction;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.regex.Pattern;
+
+public class UniquenessIndex {
+
+    // Index collections keyed by the normalized value, each document holding the owner uid
+    static final String EMAILS = "emails";
+    static final String PHONES = "phones";
+    // Set on profiles whose keys are in the index; legacy duplicates are listed under DUPLICATES
+    static final String INDEXED = "uniqueIndexed";
+    static final String DUPLICATES = "duplicateFields";
+
+    static final String EMAIL_TAKEN = "Email is already registered";
+    static final String PHONE_TAKEN = "Mobile No. is already registered";
+
+    // Shared by Register, Login and EditProfile. Email uses the platform pattern so every
+    // address Auth already accepted, including subdomains and upper case, stays valid.
+    static final Pattern EMAIL_PATTERN = Patterns.EMAIL_ADDRESS;
+    static final Pattern MOBILE_PATTERN = Pattern.compile("09\\d{9}");
+
+    public interface AvailabilityCallback {
+        void onResult(String value, boolean available);
+    }
+
+    private static final LruCache<String, Boolean> availability = new LruCache<>(64);
+
+    private final FirebaseFirestore fStore;
+
+    public UniquenessIndex(FirebaseFirestore fStore) {
+        this.fStore = fStore;
+    }
+
+    static boolean isValidEmail(String email) {
+        return EMAIL_PATTERN.matcher(email).matches();
+    }
+
+    static boolean isValidMobile(String mobile) {
+        return MOBILE_PATTERN.matcher(mobile).matches();
+    }
+
+    static String normalizeEmail(String email) {
+        return email.trim().toLowerCase(Locale.ROOT);
+    }
+
+    static String normalizePhone(String phone) {
+        return phone.replaceAll("\\D", "");
+    }
+
+    DocumentReference emailRef(String email) {
+        return fStore.collection(EMAILS).document(normalizeEmail(email));
+    }
+
+    DocumentReference phoneRef(String phone) {
+        return fStore.collection(PHONES).document(normalizePhone(phone));
+    }
+
+    // Point read of one index document, cached so retyping a value costs nothing
+    public void checkAvailable(String collection, String value, @NonNull AvailabilityCallback callback) {
+        String normalized = EMAILS.equals(collection) ? normalizeEmail(value) : normalizePhone(value);
+        String cacheKey = collection + "/" + normalized;
+        Boolean cached = availability.get(cacheKey);
+        if (cached != null) {
+            callback.onResult(value, cached);
+            return;
+        }
+        fStore.collection(collection).document(normalized).get()
+                .addOnSuccessListener(snapshot -> {
+                    boolean available = !snapshot.exists();
+                    availability.put(cacheKey, available);
+                    callback.onResult(value, available);
+                });
+    }
+
+    // Claim both keys for uid inside a transaction, failing if another user owns either one
+    void claim(@NonNull Transaction transaction, String uid, String email, String phone)
+            throws FirebaseFirestoreException {
+        DocumentReference emailDoc = emailRef(email);
+        DocumentReference phoneDoc = phoneRef(phone);
+        ensureFree(transaction.get(emailDoc), uid, EMAIL_TAKEN);
+        ensureFree(transaction.get(phoneDoc), uid, PHONE_TAKEN);
+        transaction.set(emailDoc, owner(uid));
+        transaction.set(phoneDoc, owner(uid));
+    }
+
+    // Claim the new keys and drop the old ones. Every read happens before the first write,
+    // and an old key is only deleted while it still belongs to uid.
+    void move(@NonNull Transaction transaction, String uid, @Nullable String oldEmail, String newEmail,
+              @Nullable String oldPhone, String newPhone) throws FirebaseFirestoreException {
+        DocumentReference oldEmailDoc = stale(oldEmail != null ? emailRef(oldEmail) : null, emailRef(newEmail));
+        DocumentReference oldPhoneDoc = stale(oldPhone != null ? phoneRef(oldPhone) : null, phoneRef(newPhone));
+        boolean ownsOldEmail = oldEmailDoc != null && uid.equals(transaction.get(oldEmailDoc).getString("uid"));
+        boolean ownsOldPhone = oldPhoneDoc != null && uid.equals(transaction.get(oldPhoneDoc).getString("uid"));
+        claim(transaction, uid, newEmail, newPhone);
+        if (ownsOldEmail) {
+            transaction.delete(oldEmailDoc);
+        }
+        if (ownsOldPhone) {
+            transaction.delete(oldPhoneDoc);
+        }
+    }
+
+    @Nullable
+    private static DocumentReference stale(@Nullable DocumentReference oldRef, DocumentReference newRef) {
+        return oldRef != null && !oldRef.getPath().equals(newRef.getPath()) ? oldRef : null;
+    }
+
+    // Index a profile written before the index existed. A key someone else already holds
+    // is recorded on the profile instead of failing, so admins can find legacy duplicates.
+    Task<Void> indexExisting(String uid, @Nullable String email, @Nullable String phone) {
+        DocumentReference profile = fStore.collection("users").document(uid);
+        return fStore.runTransaction((Transaction.Function<Void>) transaction -> {
+            DocumentReference emailDoc = email != null ? emailRef(email) : null;
+            DocumentReference phoneDoc = phone != null ? phoneRef(phone) : null;
+            String emailOwner = emailDoc != null ? ownerOf(transaction.get(emailDoc)) : null;
+            String phoneOwner = phoneDoc != null ? ownerOf(transaction.get(phoneDoc)) : null;
+
+            List<String> duplicates = new ArrayList<>();
+            if (emailDoc != null && emailOwner == null) {
+                transaction.set(emailDoc, owner(uid));
+            } else if (emailDoc != null && !uid.equals(emailOwner)) {
+                duplicates.add("email");
+            }
+            if (phoneDoc != null && phoneOwner == null) {
+                transaction.set(phoneDoc, owner(uid));
+            } else if (phoneDoc != null && !uid.equals(phoneOwner)) {
+                duplicates.add("phone");
+            }
+            transaction.update(profile, INDEXED, true, DUPLICATES, duplicates.isEmpty() ? null : duplicates);
+            return null;
+        });
+    }
+
+    @Nullable
+    private static String ownerOf(DocumentSnapshot snapshot) {
+        return snapshot.exists() ? snapshot.getString("uid") : null;
+    }
+
+    // A key held by someone else; the transaction failed once, without being retried
+    static boolean isTaken(@Nullable Exception e) {
+        return e instanceof FirebaseFirestoreException
+                && ((FirebaseFirestoreException) e).getCode() == FirebaseFirestoreException.Code.INVALID_ARGUMENT
+                && (EMAIL_TAKEN.equals(e.getMessage()) || PHONE_TAKEN.equals(e.getMessage()));
+    }
+
+    static boolean isEmailTaken(@Nullable Exception e) {
+        return isTaken(e) && EMAIL_TAKEN.equals(e.getMessage());
+    }
+
+    static void forget(String collection, String normalized) {
+        availability.remove(collection + "/" + normalized);
+    }
+
+    // The transaction runner retries ALREADY_EXISTS, which would replay a real conflict
+    // several times with backoff, so a taken key fails as INVALID_ARGUMENT instead
+    private static void ensureFree(DocumentSnapshot snapshot, String uid, String message)
+            throws FirebaseFirestoreException {
+        if (snapshot.exists() && !uid.equals(snapshot.getString("uid"))) {
+            throw new FirebaseFirestoreException(message, FirebaseFirestoreException.Code.INVALID_ARGUMENT);
+        }
+    }
+
+    private static Map<String, Object> owner(String uid) {
+        return Collections.singletonMap("uid", uid);
+    }
+}
@@ -1,8 +1,96 @@
 package com.example.employee_data_app;
 
+import androidx.annotation.Nullable;
+
+import com.google.firebase.Timestamp;
+import com.google.firebase.firestore.DocumentId;
+
+import java.util.List;
+import java.util.Locale;
+
 public class User {
+    // Lower-cased copies stored next to fName and email, so the server orders the way the client compares
+    static final String NAME_KEY = "fNameLower";
+    static final String EMAIL_KEY = "emailLower";
+    // Stored by the admin backfill for profiles that predate registeredAt
+    static final Timestamp UNKNOWN_REGISTRATION = new Timestamp(0, 0);
+
+    @DocumentId
+    String uid;
     String fName, email;
+    String fNameLower, emailLower;
     String phone;
+    String photoGeneration;
+    String department;
+    Timestamp registeredAt;
+    Boolean emailVerified;
+    // Set by the uniqueness backfill when a legacy profile shares its email or phone
+    List<String> duplicateFields;
+    String isUser, isAdmin;
+
+    public String getUid() {
+        return uid;
+    }
+
+    public void setUid(String uid) {
+        this.uid = uid;
+    }
+
+    public Timestamp getRegisteredAt() {
+        return registeredAt;
+    }
+
+    public void setRegisteredAt(Timestamp registeredAt) {
+        this.registeredAt = registeredAt;
+    }
+
+    public Boolean getEmailVerified() {
+        return emailVerified;
+    }
+
+    public void setEmailVerified(Boolean emailVerified) {
+        this.emailVerified = emailVerified;
+    }
+
+    public List<String> getDuplicateFields() {
+        return duplicateFields;
+    }
+
+    public void setDuplicateFields(List<String> duplicateFields) {
+        this.duplicateFields = duplicateFields;
+    }
+
+    public String getIsUser() {
+        return isUser;
+    }
+
+    public void setIsUser(String isUser) {
+        this.isUser = isUser;
+    }
+
+    public String getIsAdmin() {
+        return isAdmin;
+    }
+
+    public void setIsAdmin(String isAdmin) {
+        this.isAdmin = isAdmin;
+    }
+
+    public String getPhotoGeneration() {
+        return photoGeneration;
+    }
+
+    public void setPhotoGeneration(String photoGeneration) {
+        this.photoGeneration = photoGeneration;
+    }
+
+    public String getDepartment() {
+        return department;
+    }
+
+    public void setDepartment(String department) {
+        this.department = department;
+    }
 
     public String getPhone() {
         return phone;
@@ -15,6 +103,41 @@ public class User {
     public User() {
 
     }
+
+    static String sortKey(@Nullable String value) {
+        return value != null ? value.toLowerCase(Locale.ROOT) : "";
+    }
+
+    // Profiles written before the stored keys existed derive them on first use
+    String nameKey() {
+        if (fNameLower == null) {
+            fNameLower = sortKey(fName);
+        }
+        return fNameLower;
+    }
+
+    String emailKey() {
+        if (emailLower == null) {
+            emailLower = sortKey(email);
+        }
+        return emailLower;
+    }
+
+    public String getfNameLower() {
+        return fNameLower;
+    }
+
+    public void setfNameLower(String fNameLower) {
+        this.fNameLower = fNameLower;
+    }
+
+    public String getEmailLower() {
+        return emailLower;
+    }
+
+    public void setEmailLower(String emailLower) {
+        this.emailLower = emailLower;
+    }
     public String getfName() {
         return fName;
     }
@@ -0,0 +1,28 @@
+plugins {
+    application
+}
+
+java {
+    sourceCompatibility = JavaVersion.VERSION_1_8
+    targetCompatibility = JavaVersion.VERSION_1_8
+}
+
+application {
+    mainClass.set("com.example.employee_data_app.loadgen.LoadGenerator")
+}
+
+dependencies {
+    implementation("com.google.firebase:firebase-admin:9.2.0")
+}
+
+// One-off server-side profile migration; see ProfileMigration
+tasks.register<JavaExec>("migrateProfiles") {
+    classpath = sourceSets["main"].runtimeClasspath
+    mainClass.set("com.example.employee_data_app.loadgen.ProfileMigration")
+}
+
+// Daily server-side audit rollup; see AuditCompaction
+tasks.register<JavaExec>("compactAudit") {
+    classpath = sourceSets["main"].runtimeClasspath
+    mainClass.set("com.example.employee_data_app.loadgen.AuditCompaction")
+}
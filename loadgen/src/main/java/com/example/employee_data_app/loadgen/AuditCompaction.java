@@ -0,0 +1,186 @@
+package com.example.employee_data_app.loadgen;
+
+import com.google.auth.oauth2.GoogleCredentials;
+import com.google.cloud.Timestamp;
+import com.google.cloud.firestore.CollectionReference;
+import com.google.cloud.firestore.DocumentReference;
+import com.google.cloud.firestore.DocumentSnapshot;
+import com.google.cloud.firestore.FieldValue;
+import com.google.cloud.firestore.Firestore;
+import com.google.cloud.firestore.Query;
+import com.google.cloud.firestore.QueryDocumentSnapshot;
+import com.google.cloud.firestore.SetOptions;
+import com.google.firebase.FirebaseApp;
+import com.google.firebase.FirebaseOptions;
+import com.google.firebase.cloud.FirestoreClient;
+
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Calendar;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TimeZone;
+
+/**
+ * Folds raw audit entries from before today into per-day rollups and deletes the originals.
+ *
+ * Runs server-side (for example from a daily scheduler) so no employee's own client ever deletes
+ * their audit trail; client rules only need to allow creating audit entries.
+ *
+ * Usage: GOOGLE_APPLICATION_CREDENTIALS=service-account.json \
+ *   ./gradlew :loadgen:compactAudit --args="--project=my-project"
+ */
+public class AuditCompaction {
+
+    // Raw entries under users/{uid}/audit, rolled up into users/{uid}/auditDaily/{yyyy-MM-dd}
+    private static final String AUDIT = "audit";
+    private static final String AUDIT_DAILY = "auditDaily";
+
+    // A transaction holds at most 500 writes
+    private static final int PAGE_SIZE = 400;
+    // A day spills into numbered chunk documents well before the 1 MiB document limit
+    static final int MAX_DAY_ENTRIES = 250;
+
+    public static void main(String[] args) throws Exception {
+        String projectId = null;
+        for (String arg : args) {
+            if (arg.startsWith("--project=")) {
+                projectId = arg.substring("--project=".length());
+            } else {
+                throw new IllegalArgumentException("Unknown argument " + arg);
+            }
+        }
+        if (projectId == null) {
+            System.err.println("--project is required");
+            System.exit(2);
+        }
+
+        FirebaseApp app = FirebaseApp.initializeApp(FirebaseOptions.builder()
+                .setProjectId(projectId)
+                .setCredentials(GoogleCredentials.getApplicationDefault())
+                .build());
+        Firestore db = FirestoreClient.getFirestore(app);
+
+        Calendar today = Calendar.getInstance(TimeZone.getTimeZone("UTC"), Locale.ROOT);
+        today.set(Calendar.HOUR_OF_DAY, 0);
+        today.set(Calendar.MINUTE, 0);
+        today.set(Calendar.SECOND, 0);
+        today.set(Calendar.MILLISECOND, 0);
+        Timestamp startOfToday = Timestamp.of(today.getTime());
+
+        int folded = 0;
+        while (true) {
+            // Needs the collection-group index on audit.at from firestore.indexes.json
+            List<QueryDocumentSnapshot> docs = db.collectionGroup(AUDIT)
+                    .whereLessThan("at", startOfToday)
+                    .orderBy("at", Query.Direction.ASCENDING)
+                    .limit(PAGE_SIZE)
+                    .get().get().getDocuments();
+            if (docs.isEmpty()) {
+                break;
+            }
+            Map<DocumentReference, List<DocumentReference>> byUser = new LinkedHashMap<>();
+            for (QueryDocumentSnapshot doc : docs) {
+                DocumentReference user = doc.getReference().getParent().getParent();
+                List<DocumentReference> refs = byUser.get(user);
+                if (refs == null) {
+                    refs = new ArrayList<>();
+                    byUser.put(user, refs);
+                }
+                refs.add(doc.getReference());
+            }
+            for (Map.Entry<DocumentReference, List<DocumentReference>> user : byUser.entrySet()) {
+                folded += compact(db, user.getKey(), user.getValue());
+            }
+            System.out.printf("Folded %d audit entries%n", folded);
+            if (docs.size() < PAGE_SIZE) {
+                break;
+            }
+        }
+        app.delete();
+    }
+
+    // Re-reads every raw entry inside the transaction, so entries another run already folded
+    // are skipped instead of being counted twice
+    private static int compact(Firestore db, DocumentReference user, List<DocumentReference> refs) throws Exception {
+        CollectionReference daily = user.collection(AUDIT_DAILY);
+        return db.runTransaction(transaction -> {
+            List<DocumentSnapshot> raw = transaction.getAll(refs.toArray(new DocumentReference[0])).get();
+            Map<String, List<Map<String, Object>>> byDay = new LinkedHashMap<>();
+            List<DocumentReference> folded = new ArrayList<>();
+            for (DocumentSnapshot doc : raw) {
+                Timestamp at = doc.exists() ? doc.getTimestamp("at") : null;
+                if (at == null) {
+                    continue;
+                }
+                Map<String, Object> entry = new HashMap<>(doc.getData());
+                entry.put("id", doc.getId());
+                String day = dayKey(at.toDate());
+                List<Map<String, Object>> entries = byDay.get(day);
+                if (entries == null) {
+                    entries = new ArrayList<>();
+                    byDay.put(day, entries);
+                }
+                entries.add(entry);
+                folded.add(doc.getReference());
+            }
+
+            // All reads first: each day's first chunk says how many chunks exist
+            Map<String, Integer> chunks = new HashMap<>();
+            Map<String, Long> lastCount = new HashMap<>();
+            for (String day : byDay.keySet()) {
+                DocumentSnapshot head = transaction.get(daily.document(day)).get();
+                Long stored = head.getLong("chunks");
+                int count = head.exists() ? (stored != null ? stored.intValue() : 1) : 0;
+                DocumentSnapshot last = count > 1 ? transaction.get(daily.document(chunkId(day, count - 1))).get() : head;
+                Long entries = last.getLong("count");
+                chunks.put(day, count);
+                lastCount.put(day, entries != null ? entries : 0);
+            }
+
+            for (Map.Entry<String, List<Map<String, Object>>> day : byDay.entrySet()) {
+                List<Map<String, Object>> entries = day.getValue();
+                int chunk = Math.max(chunks.get(day.getKey()) - 1, 0);
+                long room = MAX_DAY_ENTRIES - (chunks.get(day.getKey()) > 0 ? lastCount.get(day.getKey()) : 0);
+                int from = 0;
+                while (from < entries.size()) {
+                    if (room <= 0) {
+                        chunk++;
+                        room = MAX_DAY_ENTRIES;
+                    }
+                    int to = (int) Math.min(entries.size(), from + room);
+                    Map<String, Object> rollup = new HashMap<>();
+                    rollup.put("day", day.getKey());
+                    rollup.put("entries", FieldValue.arrayUnion(entries.subList(from, to).toArray()));
+                    rollup.put("count", FieldValue.increment(to - from));
+                    transaction.set(daily.document(chunkId(day.getKey(), chunk)), rollup, SetOptions.merge());
+                    room -= to - from;
+                    from = to;
+                }
+                transaction.set(daily.document(day.getKey()),
+                        Collections.singletonMap("chunks", chunk + 1), SetOptions.merge());
+            }
+            for (DocumentReference ref : folded) {
+                transaction.delete(ref);
+            }
+            return folded.size();
+        }).get();
+    }
+
+    // Chunk 0 keeps the plain day id; later chunks sort after it, so newest-first paging by day
+    // and document id reads a day's newest chunk first
+    static String chunkId(String day, int chunk) {
+        return chunk == 0 ? day : day + "_" + String.format(Locale.ROOT, "%03d", chunk);
+    }
+
+    static String dayKey(Date date) {
+        SimpleDateFormat format = new SimpleDateFormat("yyyy-MM-dd", Locale.ROOT);
+        format.setTimeZone(TimeZone.getTimeZone("UTC"));
+        return format.format(date);
+    }
+}
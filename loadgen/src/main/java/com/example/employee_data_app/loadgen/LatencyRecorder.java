@@ -0,0 +1,58 @@
+package com.example.employee_data_app.loadgen;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+public class LatencyRecorder {
+
+    private static class Series {
+        long[] samples = new long[1024];
+        int count;
+        final AtomicLong failures = new AtomicLong();
+
+        synchronized void add(long nanos) {
+            if (count == samples.length) {
+                samples = Arrays.copyOf(samples, count * 2);
+            }
+            samples[count++] = nanos;
+        }
+
+        synchronized long[] sorted() {
+            long[] copy = Arrays.copyOf(samples, count);
+            Arrays.sort(copy);
+            return copy;
+        }
+    }
+
+    private final Map<String, Series> series = new ConcurrentHashMap<>();
+
+    void record(String name, long nanos) {
+        series.computeIfAbsent(name, k -> new Series()).add(nanos);
+    }
+
+    void failure(String name) {
+        series.computeIfAbsent(name, k -> new Series()).failures.incrementAndGet();
+    }
+
+    void report(double elapsedSeconds) {
+        System.out.printf("%-14s %8s %8s %10s %10s %10s %10s%n",
+                "series", "ok", "failed", "ops/s", "p50 ms", "p95 ms", "p99 ms");
+        for (Map.Entry<String, Series> e : series.entrySet()) {
+            long[] sorted = e.getValue().sorted();
+            System.out.printf("%-14s %8d %8d %10.1f %10.2f %10.2f %10.2f%n",
+                    e.getKey(), sorted.length, e.getValue().failures.get(),
+                    sorted.length / elapsedSeconds,
+                    percentile(sorted, 50), percentile(sorted, 95), percentile(sorted, 99));
+        }
+    }
+
+    private static double percentile(long[] sorted, int p) {
+        if (sorted.length == 0) {
+            return 0;
+        }
+        int index = (int) Math.ceil(p / 100.0 * sorted.length) - 1;
+        return sorted[Math.max(0, Math.min(index, sorted.length - 1))] / 1_000_000.0;
+    }
+}
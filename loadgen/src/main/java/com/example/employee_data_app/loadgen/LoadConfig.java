@@ -0,0 +1,97 @@
+package com.example.employee_data_app.loadgen;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+public class LoadConfig {
+
+    String projectId = "demo-employee-data-app";
+    int seedUsers = 50000;
+    int concurrency = 100;
+    int durationSeconds = 60;
+    long randomSeed = 42;
+
+    // Share of each operation in the replayed workload
+    Map<String, Integer> mix = new LinkedHashMap<>();
+
+    // Field distributions used when seeding
+    double verifiedRatio = 0.8;
+    int registrationSpreadDays = 365;
+    Map<String, Integer> phonePrefixes = new LinkedHashMap<>();
+    Map<String, Integer> departments = new LinkedHashMap<>();
+
+    LoadConfig() {
+        mix.put(Workload.REGISTER, 60);
+        mix.put(Workload.EDIT, 35);
+        mix.put(Workload.DELETE, 5);
+
+        phonePrefixes.put("0917", 35);
+        phonePrefixes.put("0918", 20);
+        phonePrefixes.put("0927", 15);
+        phonePrefixes.put("0998", 15);
+        phonePrefixes.put("0905", 15);
+
+        // Skewed like a real org, so one admin's partition is much larger than another's
+        departments.put("Engineering", 40);
+        departments.put("Sales", 25);
+        departments.put("Operations", 20);
+        departments.put("Finance", 8);
+        departments.put("Human Resources", 5);
+        departments.put("Unassigned", 2);
+    }
+
+    // --users=50000 --concurrency=100 --duration=60 --seed=42 --mix=register:60,edit:35,delete:5
+    static LoadConfig parse(String[] args) {
+        LoadConfig config = new LoadConfig();
+        for (String arg : args) {
+            String[] kv = arg.replaceFirst("^--", "").split("=", 2);
+            if (kv.length != 2) {
+                throw new IllegalArgumentException("Expected --key=value but got " + arg);
+            }
+            switch (kv[0]) {
+                case "project":
+                    config.projectId = kv[1];
+                    break;
+                case "users":
+                    config.seedUsers = Integer.parseInt(kv[1]);
+                    break;
+                case "concurrency":
+                    config.concurrency = Integer.parseInt(kv[1]);
+                    break;
+                case "duration":
+                    config.durationSeconds = Integer.parseInt(kv[1]);
+                    break;
+                case "seed":
+                    config.randomSeed = Long.parseLong(kv[1]);
+                    break;
+                case "verified":
+                    config.verifiedRatio = Double.parseDouble(kv[1]);
+                    break;
+                case "spreadDays":
+                    config.registrationSpreadDays = Integer.parseInt(kv[1]);
+                    break;
+                case "mix":
+                    config.mix = parseWeights(kv[1]);
+                    break;
+                case "prefixes":
+                    config.phonePrefixes = parseWeights(kv[1]);
+                    break;
+                case "departments":
+                    config.departments = parseWeights(kv[1]);
+                    break;
+                default:
+                    throw new IllegalArgumentException("Unknown option " + kv[0]);
+            }
+        }
+        return config;
+    }
+
+    private static Map<String, Integer> parseWeights(String value) {
+        Map<String, Integer> weights = new LinkedHashMap<>();
+        for (String part : value.split(",")) {
+            String[] kv = part.split(":");
+            weights.put(kv[0], Integer.parseInt(kv[1]));
+        }
+        return weights;
+    }
+}
@@ -0,0 +1,113 @@
+package com.example.employee_data_app.loadgen;
+
+import com.google.auth.oauth2.AccessToken;
+import com.google.auth.oauth2.GoogleCredentials;
+import com.google.cloud.firestore.DocumentChange;
+import com.google.cloud.firestore.Firestore;
+import com.google.cloud.firestore.ListenerRegistration;
+import com.google.firebase.FirebaseApp;
+import com.google.firebase.FirebaseOptions;
+import com.google.firebase.auth.FirebaseAuth;
+import com.google.firebase.cloud.FirestoreClient;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Seeds the Firestore/Auth emulators and replays concurrent register, edit and delete traffic.
+ *
+ * Usage: FIRESTORE_EMULATOR_HOST=localhost:8080 FIREBASE_AUTH_EMULATOR_HOST=localhost:9099 \
+ *   ./gradlew :loadgen:run --args="--users=50000 --concurrency=100 --duration=60"
+ */
+public class LoadGenerator {
+
+    public static void main(String[] args) throws Exception {
+        // Refuse to run against a real project
+        if (System.getenv("FIRESTORE_EMULATOR_HOST") == null || System.getenv("FIREBASE_AUTH_EMULATOR_HOST") == null) {
+            System.err.println("FIRESTORE_EMULATOR_HOST and FIREBASE_AUTH_EMULATOR_HOST must be set");
+            System.exit(2);
+        }
+        LoadConfig config = LoadConfig.parse(args);
+
+        // The emulators accept any token
+        FirebaseApp app = FirebaseApp.initializeApp(FirebaseOptions.builder()
+                .setProjectId(config.projectId)
+                .setCredentials(GoogleCredentials.create(new AccessToken("owner", new Date(Long.MAX_VALUE))))
+                .build());
+        Firestore db = FirestoreClient.getFirestore(app);
+        FirebaseAuth auth = FirebaseAuth.getInstance(app);
+
+        LatencyRecorder recorder = new LatencyRecorder();
+        Workload workload = new Workload(db, auth, config);
+
+        long seedStart = System.nanoTime();
+        workload.seed(new Random(config.randomSeed));
+        double seedSeconds = (System.nanoTime() - seedStart) / 1e9;
+        System.out.printf("Seeded %d users in %.1f s (%.0f docs/s)%n",
+                config.seedUsers, seedSeconds, config.seedUsers / seedSeconds);
+
+        // Same per-department listener an admin attaches for an expanded section; measures delivery lag.
+        // The first snapshot replays the seeded documents, whose send times say nothing about delivery.
+        String partition = config.departments.keySet().iterator().next();
+        AtomicBoolean initial = new AtomicBoolean(true);
+        ListenerRegistration listener = db.collection("users").whereEqualTo("department", partition)
+                .orderBy("fNameLower")
+                .addSnapshotListener((snapshot, error) -> {
+                    if (snapshot == null || initial.getAndSet(false)) {
+                        return;
+                    }
+                    long now = System.currentTimeMillis();
+                    for (DocumentChange change : snapshot.getDocumentChanges()) {
+                        Long sentAt = change.getDocument().getLong(Workload.SENT_AT);
+                        if (sentAt != null && change.getType() != DocumentChange.Type.REMOVED) {
+                            recorder.record("listener-lag", (now - sentAt) * 1_000_000L);
+                        }
+                    }
+                });
+
+        List<String> operations = new ArrayList<>();
+        for (Map.Entry<String, Integer> e : config.mix.entrySet()) {
+            for (int i = 0; i < e.getValue(); i++) {
+                operations.add(e.getKey());
+            }
+        }
+
+        ExecutorService workers = Executors.newFixedThreadPool(config.concurrency);
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(config.durationSeconds);
+        long runStart = System.nanoTime();
+        for (int w = 0; w < config.concurrency; w++) {
+            workers.execute(() -> {
+                while (System.nanoTime() < deadline) {
+                    String operation = operations.get(ThreadLocalRandom.current().nextInt(operations.size()));
+                    long start = System.nanoTime();
+                    try {
+                        workload.run(operation);
+                        recorder.record(operation, System.nanoTime() - start);
+                    } catch (Exception e) {
+                        recorder.failure(operation);
+                    }
+                }
+            });
+        }
+        workers.shutdown();
+        workers.awaitTermination(config.durationSeconds + 60L, TimeUnit.SECONDS);
+        double runSeconds = (System.nanoTime() - runStart) / 1e9;
+
+        // Give in-flight listener deliveries a moment before reporting
+        Thread.sleep(2000);
+        listener.remove();
+
+        System.out.printf("Ran %d workers for %.1f s%n", config.concurrency, runSeconds);
+        recorder.report(runSeconds);
+        app.delete();
+        System.exit(0);
+    }
+}
@@ -0,0 +1,193 @@
+package com.example.employee_data_app.loadgen;
+
+import com.google.auth.oauth2.GoogleCredentials;
+import com.google.cloud.Timestamp;
+import com.google.cloud.firestore.DocumentReference;
+import com.google.cloud.firestore.DocumentSnapshot;
+import com.google.cloud.firestore.FieldPath;
+import com.google.cloud.firestore.FieldValue;
+import com.google.cloud.firestore.Firestore;
+import com.google.cloud.firestore.Query;
+import com.google.cloud.firestore.QueryDocumentSnapshot;
+import com.google.cloud.firestore.WriteBatch;
+import com.google.firebase.FirebaseApp;
+import com.google.firebase.FirebaseOptions;
+import com.google.firebase.auth.AuthErrorCode;
+import com.google.firebase.auth.FirebaseAuth;
+import com.google.firebase.auth.FirebaseAuthException;
+import com.google.firebase.cloud.FirestoreClient;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * One-off server-side migration that fills in the profile fields later releases query on, and
+ * claims the emails/phones index keys for profiles written before the index existed.
+ *
+ * Runs once per project instead of from every admin device. Legacy accounts that sign in first
+ * still heal their own profile in MainActivity.
+ *
+ * Usage: GOOGLE_APPLICATION_CREDENTIALS=service-account.json \
+ *   ./gradlew :loadgen:migrateProfiles --args="--project=my-project"
+ */
+public class ProfileMigration {
+
+    // Bump when the migration learns a new field; a finished version is not run again
+    static final int VERSION = 1;
+    // A batch holds at most 500 writes
+    private static final int PAGE_SIZE = 400;
+
+    private static final String MARKER = "migrations/profiles";
+    private static final Timestamp UNKNOWN_REGISTRATION = Timestamp.ofTimeSecondsAndNanos(0, 0);
+
+    public static void main(String[] args) throws Exception {
+        String projectId = null;
+        boolean force = false;
+        for (String arg : args) {
+            if (arg.startsWith("--project=")) {
+                projectId = arg.substring("--project=".length());
+            } else if (arg.equals("--force")) {
+                force = true;
+            } else {
+                throw new IllegalArgumentException("Unknown argument " + arg);
+            }
+        }
+        if (projectId == null) {
+            System.err.println("--project is required");
+            System.exit(2);
+        }
+
+        FirebaseApp app = FirebaseApp.initializeApp(FirebaseOptions.builder()
+                .setProjectId(projectId)
+                .setCredentials(GoogleCredentials.getApplicationDefault())
+                .build());
+        Firestore db = FirestoreClient.getFirestore(app);
+        FirebaseAuth auth = FirebaseAuth.getInstance(app);
+
+        DocumentReference marker = db.document(MARKER);
+        Long done = marker.get().get().getLong("version");
+        if (!force && done != null && done >= VERSION) {
+            System.out.printf("Profile migration %d already applied%n", done);
+            app.delete();
+            return;
+        }
+
+        int scanned = 0;
+        int updated = 0;
+        int indexed = 0;
+        DocumentSnapshot after = null;
+        while (true) {
+            Query query = db.collection("users").orderBy(FieldPath.documentId()).limit(PAGE_SIZE);
+            if (after != null) {
+                query = query.startAfter(after);
+            }
+            List<QueryDocumentSnapshot> docs = query.get().get().getDocuments();
+            WriteBatch batch = db.batch();
+            int writes = 0;
+            for (QueryDocumentSnapshot doc : docs) {
+                Map<String, Object> missing = missingFields(auth, doc);
+                if (!missing.isEmpty()) {
+                    batch.update(doc.getReference(), missing);
+                    writes++;
+                }
+            }
+            if (writes > 0) {
+                batch.commit().get();
+            }
+            updated += writes;
+            // Index keys need reads, so each legacy profile is claimed in its own transaction
+            for (QueryDocumentSnapshot doc : docs) {
+                if (!Boolean.TRUE.equals(doc.getBoolean("uniqueIndexed"))) {
+                    indexExisting(db, doc.getId(), doc.getString("email"), doc.getString("phone"));
+                    indexed++;
+                }
+            }
+            scanned += docs.size();
+            System.out.printf("Scanned %d profiles, updated %d, indexed %d%n", scanned, updated, indexed);
+            if (docs.size() < PAGE_SIZE) {
+                break;
+            }
+            after = docs.get(docs.size() - 1);
+        }
+
+        Map<String, Object> finished = new HashMap<>();
+        finished.put("version", VERSION);
+        finished.put("completedAt", FieldValue.serverTimestamp());
+        marker.set(finished).get();
+        app.delete();
+    }
+
+    // Same fields MainActivity heals on sign-in; Auth knows the real registration date here
+    static Map<String, Object> missingFields(FirebaseAuth auth, DocumentSnapshot doc) throws FirebaseAuthException {
+        Map<String, Object> missing = new HashMap<>();
+        if (!doc.contains("fNameLower")) {
+            missing.put("fNameLower", sortKey(doc.getString("fName")));
+        }
+        if (!doc.contains("emailLower")) {
+            missing.put("emailLower", sortKey(doc.getString("email")));
+        }
+        if (!doc.contains("department")) {
+            missing.put("department", "Unassigned");
+        }
+        if (!doc.contains("managerId")) {
+            missing.put("managerId", null);
+        }
+        if (!doc.contains("registeredAt")) {
+            missing.put("registeredAt", registeredAt(auth, doc.getId()));
+        }
+        return missing;
+    }
+
+    private static Timestamp registeredAt(FirebaseAuth auth, String uid) throws FirebaseAuthException {
+        try {
+            return Timestamp.ofTimeMicroseconds(auth.getUser(uid).getUserMetadata().getCreationTimestamp() * 1000);
+        } catch (FirebaseAuthException e) {
+            if (e.getAuthErrorCode() == AuthErrorCode.USER_NOT_FOUND) {
+                return UNKNOWN_REGISTRATION;
+            }
+            throw e;
+        }
+    }
+
+    // A key someone else already holds is recorded on the profile instead of failing
+    private static void indexExisting(Firestore db, String uid, String email, String phone) throws Exception {
+        DocumentReference profile = db.collection("users").document(uid);
+        db.runTransaction(transaction -> {
+            DocumentReference emailDoc = email != null
+                    ? db.collection("emails").document(email.trim().toLowerCase(Locale.ROOT)) : null;
+            DocumentReference phoneDoc = phone != null
+                    ? db.collection("phones").document(phone.replaceAll("\\D", "")) : null;
+            String emailOwner = emailDoc != null ? ownerOf(transaction.get(emailDoc).get()) : null;
+            String phoneOwner = phoneDoc != null ? ownerOf(transaction.get(phoneDoc).get()) : null;
+
+            List<String> duplicates = new ArrayList<>();
+            if (emailDoc != null && emailOwner == null) {
+                transaction.set(emailDoc, Collections.singletonMap("uid", uid));
+            } else if (emailDoc != null && !uid.equals(emailOwner)) {
+                duplicates.add("email");
+            }
+            if (phoneDoc != null && phoneOwner == null) {
+                transaction.set(phoneDoc, Collections.singletonMap("uid", uid));
+            } else if (phoneDoc != null && !uid.equals(phoneOwner)) {
+                duplicates.add("phone");
+            }
+            Map<String, Object> update = new HashMap<>();
+            update.put("uniqueIndexed", true);
+            update.put("duplicateFields", duplicates.isEmpty() ? null : duplicates);
+            transaction.update(profile, update);
+            return null;
+        }).get();
+    }
+
+    private static String ownerOf(DocumentSnapshot snapshot) {
+        return snapshot.exists() ? snapshot.getString("uid") : null;
+    }
+
+    private static String sortKey(String s) {
+        return s != null ? s.toLowerCase(Locale.ROOT) : "";
+    }
+}
@@ -0,0 +1,272 @@
+package com.example.employee_data_app.loadgen;
+
+import com.google.cloud.Timestamp;
+import com.google.cloud.firestore.DocumentReference;
+import com.google.cloud.firestore.DocumentSnapshot;
+import com.google.cloud.firestore.FieldValue;
+import com.google.cloud.firestore.Firestore;
+import com.google.cloud.firestore.Transaction;
+import com.google.cloud.firestore.WriteBatch;
+import com.google.firebase.auth.FirebaseAuth;
+import com.google.firebase.auth.UserRecord;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Writes with the same document shapes as Register, EditProfile and the uniqueness index.
+ */
+public class Workload {
+
+    static final String REGISTER = "register";
+    static final String EDIT = "edit";
+    static final String DELETE = "delete";
+
+    // Set on every write so the listener can measure delivery lag
+    static final String SENT_AT = "loadgenSentAt";
+
+    private static final String[] FIRST = {"Ana", "Ben", "Carla", "Dan", "Ella", "Felix", "Gina", "Hugo",
+            "Ivy", "Jose", "Kim", "Luis", "Mia", "Noel", "Olga", "Paulo", "Rita", "Sam", "Tess", "Vic"};
+    private static final String[] LAST = {"Santos", "Reyes", "Cruz", "Bautista", "Garcia", "Mendoza",
+            "Torres", "Flores", "Ramos", "Navarro", "Aquino", "Castillo", "Rivera", "Lopez"};
+
+    private final Firestore db;
+    private final FirebaseAuth auth;
+    private final LoadConfig config;
+    private final AtomicLong sequence;
+
+    // Users the edit and delete operations can pick from
+    private final List<String[]> known = Collections.synchronizedList(new ArrayList<>());
+    // Live tuples of users with an edit in flight, guarded by known; pick skips them
+    private final Map<String, String[]> editing = new HashMap<>();
+
+    Workload(Firestore db, FirebaseAuth auth, LoadConfig config) {
+        this.db = db;
+        this.auth = auth;
+        this.config = config;
+        // Numbers after the seeded range keep generated emails and phones unique
+        this.sequence = new AtomicLong(config.seedUsers);
+    }
+
+    // Seed users directly in batches; auth accounts are only created by the register workload
+    void seed(Random random) throws Exception {
+        long now = System.currentTimeMillis();
+        for (int start = 0; start < config.seedUsers; start += 160) {
+            WriteBatch batch = db.batch();
+            for (int i = start; i < Math.min(start + 160, config.seedUsers); i++) {
+                String uid = "seed-" + i;
+                String email = "seed" + i + "@example.com";
+                String phone = phone(random, i);
+                Map<String, Object> user = profile(random, email, phone);
+                long age = (long) (random.nextDouble() * config.registrationSpreadDays * 86_400_000L);
+                user.put("registeredAt", Timestamp.ofTimeMicroseconds((now - age) * 1000));
+                user.put("emailVerified", random.nextDouble() < config.verifiedRatio);
+                batch.set(db.collection("users").document(uid), user);
+                batch.set(db.collection("emails").document(email), Collections.singletonMap("uid", uid));
+                batch.set(db.collection("phones").document(phone), Collections.singletonMap("uid", uid));
+                known.add(new String[]{uid, email, phone});
+            }
+            batch.commit().get();
+        }
+    }
+
+    void run(String operation) throws Exception {
+        switch (operation) {
+            case REGISTER:
+                register();
+                break;
+            case EDIT:
+                edit();
+                break;
+            case DELETE:
+                delete();
+                break;
+            default:
+                throw new IllegalArgumentException("Unknown operation " + operation);
+        }
+    }
+
+    // Register.createUser then saveUserData
+    private void register() throws Exception {
+        long n = sequence.incrementAndGet();
+        String email = "load" + n + "-" + System.nanoTime() + "@example.com";
+        String phone = phone(ThreadLocalRandom.current(), n);
+        UserRecord record = auth.createUser(new UserRecord.CreateRequest()
+                .setEmail(email)
+                .setPassword("loadgen-password"));
+        String uid = record.getUid();
+
+        Map<String, Object> user = profile(ThreadLocalRandom.current(), email, phone);
+        user.put("registeredAt", FieldValue.serverTimestamp());
+        DocumentReference userRef = db.collection("users").document(uid);
+        db.runTransaction((Transaction.Function<Void>) tx -> {
+            claim(tx, uid, email, phone);
+            tx.set(userRef, user);
+            return null;
+        }).get();
+        known.add(new String[]{uid, email, phone});
+    }
+
+    // EditProfile save: index move, profile update and audit entries in one transaction
+    private void edit() throws Exception {
+        // A private copy; the live tuple is only written back under the known lock
+        String[] target = pick(false);
+        if (target == null) {
+            register();
+            return;
+        }
+        String uid = target[0];
+        String oldPhone = target[2];
+        String newPhone = phone(ThreadLocalRandom.current(), sequence.incrementAndGet());
+        String newName = name(ThreadLocalRandom.current());
+        DocumentReference userRef = db.collection("users").document(uid);
+        DocumentReference oldPhoneRef = db.collection("phones").document(oldPhone);
+        String committed = null;
+        try {
+            db.runTransaction((Transaction.Function<Void>) tx -> {
+                // Reads come first: only drop the old phone key if this user still owns it
+                boolean ownsOldPhone = uid.equals(tx.get(oldPhoneRef).get().getString("uid"));
+                claim(tx, uid, target[1], newPhone);
+                if (ownsOldPhone && !oldPhone.equals(newPhone)) {
+                    tx.delete(oldPhoneRef);
+                }
+                Map<String, Object> edited = new HashMap<>();
+                edited.put("fName", newName);
+                edited.put("fNameLower", newName.toLowerCase(Locale.ROOT));
+                edited.put("phone", newPhone);
+                edited.put(SENT_AT, System.currentTimeMillis());
+                tx.update(userRef, edited);
+                tx.set(userRef.collection("audit").document(), audit(uid, "phone", oldPhone, newPhone));
+                return null;
+            }).get();
+            committed = newPhone;
+        } finally {
+            release(uid, committed);
+        }
+    }
+
+    private void delete() throws Exception {
+        String[] target = pick(true);
+        if (target == null) {
+            return;
+        }
+        WriteBatch batch = db.batch();
+        batch.delete(db.collection("users").document(target[0]));
+        batch.delete(db.collection("emails").document(target[1]));
+        batch.delete(db.collection("phones").document(target[2]));
+        batch.commit().get();
+        if (!target[0].startsWith("seed-")) {
+            auth.deleteUser(target[0]);
+        }
+    }
+
+    private void claim(Transaction tx, String uid, String email, String phone) throws Exception {
+        DocumentReference emailRef = db.collection("emails").document(email.toLowerCase(Locale.ROOT));
+        DocumentReference phoneRef = db.collection("phones").document(phone);
+        DocumentSnapshot emailDoc = tx.get(emailRef).get();
+        DocumentSnapshot phoneDoc = tx.get(phoneRef).get();
+        if ((emailDoc.exists() && !uid.equals(emailDoc.getString("uid")))
+                || (phoneDoc.exists() && !uid.equals(phoneDoc.getString("uid")))) {
+            throw new IllegalStateException("Duplicate email or phone for " + uid);
+        }
+        tx.set(emailRef, Collections.singletonMap("uid", uid));
+        tx.set(phoneRef, Collections.singletonMap("uid", uid));
+    }
+
+    // Returns a copy of a user no edit is in flight for. Editing claims the user until release;
+    // deleting removes it from known, so neither can overlap another edit or delete of it.
+    private String[] pick(boolean remove) {
+        synchronized (known) {
+            int size = known.size();
+            if (size == 0) {
+                return null;
+            }
+            int start = ThreadLocalRandom.current().nextInt(size);
+            for (int i = 0; i < size; i++) {
+                int index = (start + i) % size;
+                String[] picked = known.get(index);
+                if (editing.containsKey(picked[0])) {
+                    continue;
+                }
+                if (remove) {
+                    // Swap with the last entry so removal stays O(1)
+                    known.set(index, known.get(size - 1));
+                    known.remove(size - 1);
+                } else {
+                    editing.put(picked[0], picked);
+                }
+                return picked.clone();
+            }
+            // Every known user is being edited
+            return null;
+        }
+    }
+
+    // Ends an edit, recording the committed phone on the live tuple
+    private void release(String uid, String phone) {
+        synchronized (known) {
+            String[] live = editing.remove(uid);
+            if (live != null && phone != null) {
+                live[2] = phone;
+            }
+        }
+    }
+
+    private Map<String, Object> profile(Random random, String email, String phone) {
+        Map<String, Object> user = new HashMap<>();
+        user.put("fName", name(random));
+        user.put("email", email);
+        user.put("fNameLower", ((String) user.get("fName")).toLowerCase(Locale.ROOT));
+        user.put("emailLower", email.toLowerCase(Locale.ROOT));
+        user.put("phone", phone);
+        user.put("isUser", "1");
+        user.put("uniqueIndexed", true);
+        user.put("department", pick(random, config.departments));
+        // Seeded profiles start at the top of the org chart, like new signups
+        user.put("managerId", null);
+        user.put("subtreeCount", 0);
+        user.put(SENT_AT, System.currentTimeMillis());
+        return user;
+    }
+
+    private static Map<String, Object> audit(String uid, String field, String oldValue, String newValue) {
+        Map<String, Object> entry = new HashMap<>();
+        entry.put("field", field);
+        entry.put("oldValue", oldValue);
+        entry.put("newValue", newValue);
+        entry.put("actor", uid);
+        entry.put("at", FieldValue.serverTimestamp());
+        return entry;
+    }
+
+    private static String name(Random random) {
+        return FIRST[random.nextInt(FIRST.length)] + " " + LAST[random.nextInt(LAST.length)];
+    }
+
+    // Weighted prefix plus a unique suffix, so seeded phones never collide
+    private String phone(Random random, long unique) {
+        return pick(random, config.phonePrefixes) + String.format(Locale.ROOT, "%07d", unique % 10_000_000);
+    }
+
+    private static String pick(Random random, Map<String, Integer> weights) {
+        int total = 0;
+        for (int weight : weights.values()) {
+            total += weight;
+        }
+        int roll = random.nextInt(total);
+        for (Map.Entry<String, Integer> e : weights.entrySet()) {
+            roll -= e.getValue();
+            if (roll < 0) {
+                return e.getKey();
+            }
+        }
+        return weights.keySet().iterator().next();
+    }
+}
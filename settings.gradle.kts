@@ -15,4 +15,4 @@ dependencyResolutionManagement {
 
 rootProject.name = "Employee_Data_App"
 include(":app")
- 
\ No newline at end of file
+include(":loadgen")